@@ -14,6 +14,11 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Set to true locally to log full HTTP bodies in debug builds
+        buildConfigField("boolean", "HTTP_BODY_LOGGING", "false")
+        // Gzip JSON uploads; only turn on for a backend known to accept gzip request bodies
+        buildConfigField("boolean", "GZIP_REQUEST_BODIES", "false")
     }
 
     buildTypes {
@@ -60,9 +65,17 @@ dependencies {
     // Glide (image loading)
     implementation("com.github.bumptech.glide:glide:4.16.0")
     annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
+    implementation("com.github.bumptech.glide:okhttp3-integration:4.16.0")
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0") {
+        // Use the app's own RecyclerView version
+        isTransitive = false
+    }
 
     // Tests
     testImplementation("junit:junit:4.13.2")
+    testImplementation("org.robolectric:robolectric:4.11.1")
+    testImplementation("androidx.test:core:1.5.0")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.9.3")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
\ No newline at end of file
@@ -1,9 +1,83 @@
 package com.example.farmmobileapp;
 
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
 import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.integration.okhttp3.OkHttpUrlLoader;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.model.GlideUrl;
 import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+import com.example.farmmobileapp.network.RetrofitClient;
+import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.ImageLoadStats;
+import com.example.farmmobileapp.utils.SizedImage;
+import com.example.farmmobileapp.utils.SizedImageLoader;
+
+import java.io.InputStream;
 
+/**
+ * Sizes Glide's caches for this device instead of using the defaults.
+ *
+ * The memory cache and bitmap pool each get a share of the app heap from
+ * the memory class, halved on low-RAM devices, where images also decode
+ * as RGB_565 by default. The disk cache has a fixed budget. Cache hits
+ * are counted by {@link ImageLoadStats}.
+ *
+ * Images are fetched with {@link RetrofitClient#getImageHttpClient()}, on
+ * the same connections as API calls and with the session's auth header,
+ * so loads pass plain URL strings. List thumbnails load a {@link SizedImage}
+ * instead, which fetches a server-resized rendition for the view's width.
+ */
 @GlideModule
 public final class FarmAppGlideModule extends AppGlideModule {
-    // This class is intentionally empty as it's used for Glide's annotation processor
-} 
\ No newline at end of file
+    private static final String TAG = "FarmAppGlideModule";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager.isLowRamDevice();
+        long heapBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        int lowRamFactor = lowRam ? 2 : 1;
+
+        long memoryCacheSize = heapBytes / (Constants.IMAGE_MEMORY_CACHE_HEAP_DIVISOR * lowRamFactor);
+        long bitmapPoolSize = heapBytes / (Constants.IMAGE_BITMAP_POOL_HEAP_DIVISOR * lowRamFactor);
+        LruResourceCache memoryCache = new LruResourceCache(memoryCacheSize);
+        LruBitmapPool bitmapPool = new LruBitmapPool(bitmapPoolSize);
+
+        builder.setMemoryCache(memoryCache)
+                .setBitmapPool(bitmapPool)
+                .setDiskCache(new InternalCacheDiskCacheFactory(context,
+                        Constants.IMAGE_DISK_CACHE_DIR, Constants.IMAGE_DISK_CACHE_SIZE))
+                .setDefaultRequestOptions(new RequestOptions()
+                        .format(lowRam ? DecodeFormat.PREFER_RGB_565 : DecodeFormat.PREFER_ARGB_8888))
+                .addGlobalRequestListener(ImageLoadStats.getInstance());
+        ImageLoadStats.getInstance().attach(memoryCache, bitmapPool);
+
+        Log.d(TAG, "Image memory cache " + memoryCacheSize / 1024 + "KB, bitmap pool "
+                + bitmapPoolSize / 1024 + "KB" + (lowRam ? " (low RAM)" : ""));
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.replace(GlideUrl.class, InputStream.class,
+                new OkHttpUrlLoader.Factory(RetrofitClient.getImageHttpClient()));
+        registry.prepend(SizedImage.class, InputStream.class, new SizedImageLoader.Factory());
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        // No v3 modules are declared in the manifest; skip looking for them at startup
+        return false;
+    }
+}
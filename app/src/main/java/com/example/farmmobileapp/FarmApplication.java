@@ -3,7 +3,11 @@ package com.example.farmmobileapp;
 import android.app.Application;
 import android.os.StrictMode;
 import android.util.Log;
+import android.widget.Toast;
 
+import com.example.farmmobileapp.data.ChunkedImageUploader;
+import com.example.farmmobileapp.data.OrderOutbox;
+import com.example.farmmobileapp.models.Order;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.utils.SessionManager;
 import com.example.farmmobileapp.utils.UserManager;
@@ -29,6 +33,7 @@ public class FarmApplication extends Application {
             }
 
             // Initialize network configuration
+            RetrofitClient.init(this);
             RetrofitClient.getClient(); // This will use the default BASE_URL
 
             // Initialize managers
@@ -36,6 +41,20 @@ public class FarmApplication extends Application {
             UserManager userManager = UserManager.getInstance();
             userManager.init(this);
 
+            // Send orders placed while offline
+            OrderOutbox outbox = OrderOutbox.getInstance(this);
+            outbox.addListener(new OrderOutbox.Listener() {
+                @Override
+                public void onOrderRejected(Order order, String message) {
+                    Toast.makeText(FarmApplication.this, "Order could not be placed: " + message,
+                            Toast.LENGTH_LONG).show();
+                }
+            });
+            outbox.start();
+
+            // Resume product image uploads interrupted by a lost connection or a restart
+            ChunkedImageUploader.getInstance(this).start();
+
             Log.d(TAG, "Application initialized successfully");
         } catch (Exception e) {
             Log.e(TAG, "Error initializing application", e);
@@ -49,7 +49,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void checkLoginStatus() {
-        if (sessionManager.isLoggedIn() && sessionManager.getUser() != null) {
+        if (sessionManager.isLoggedIn()) {
             // User is logged in, navigate to appropriate main activity
             navigateBasedOnRole();
         } else {
@@ -60,7 +60,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void navigateBasedOnRole() {
-        String role = sessionManager.getUser().getRole();
+        String role = sessionManager.getSession().getRole();
 
         if ("FARMER".equals(role)) {
             startActivity(new Intent(MainActivity.this, MainFarmerActivity.class));
@@ -7,6 +7,7 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.core.content.ContextCompat;
 
 import android.Manifest;
+import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
@@ -15,6 +16,7 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
@@ -22,21 +24,18 @@ import android.widget.Toast;
 
 import com.bumptech.glide.Glide;
 import com.example.farmmobileapp.R;
+import com.example.farmmobileapp.data.ChunkedImageUploader;
+import com.example.farmmobileapp.data.ImageUploadService;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.Product;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.utils.SessionManager;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.math.BigDecimal;
 
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -48,11 +47,15 @@ public class AddProductActivity extends AppCompatActivity {
     private EditText etProductName, etDescription, etPrice, etAvailableQuantity;
     private ImageView imgProductPreview;
     private Button btnSelectImage, btnAddProduct;
-    private ProgressBar progressBar;
+    private ProgressBar progressBar, progressUpload;
+    private CheckBox checkboxWifiOnly;
 
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
     private Uri selectedImageUri;
+    private long uploadProductId;
+    private ImageUploadService.Listener uploadListener;
 
     // Activity result launcher for image selection
     private ActivityResultLauncher<String> imagePickerLauncher;
@@ -71,6 +74,7 @@ public class AddProductActivity extends AppCompatActivity {
 
             sessionManager = SessionManager.getInstance(this);
             apiService = RetrofitClient.getClient().create(ApiService.class);
+            callRegistry = CallRegistry.of(this);
         } catch (Exception e) {
             Log.e(TAG, "Error in onCreate", e);
             Toast.makeText(this, "Error initializing activity: " + e.getMessage(), Toast.LENGTH_LONG).show();
@@ -87,6 +91,8 @@ public class AddProductActivity extends AppCompatActivity {
         btnSelectImage = findViewById(R.id.buttonSelectImage);
         btnAddProduct = findViewById(R.id.buttonSave);
         progressBar = findViewById(R.id.progressBar);
+        progressUpload = findViewById(R.id.progressUpload);
+        checkboxWifiOnly = findViewById(R.id.checkboxWifiOnly);
     }
 
     private void setupToolbar() {
@@ -259,8 +265,8 @@ public class AddProductActivity extends AppCompatActivity {
         product.setPrice(new BigDecimal(etPrice.getText().toString().trim()));
         product.setAvailableQuantity(Integer.parseInt(etAvailableQuantity.getText().toString().trim()));
 
-        Call<Product> call = apiService.createProduct(sessionManager.getAuthHeaderValue(), product);
-        call.enqueue(new Callback<Product>() {
+        Call<Product> call = apiService.createProduct(product);
+        callRegistry.enqueueDetached(call, new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
                 if (response.isSuccessful() && response.body() != null) {
@@ -291,70 +297,103 @@ public class AddProductActivity extends AppCompatActivity {
                 showLoading(false);
                 Toast.makeText(AddProductActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
-        });
+        }, orphanedCreateCallback());
     }
 
-    private void uploadProductImage(Long productId) {
-        File imageFile = createFileFromUri(selectedImageUri);
-        if (imageFile == null) {
-            showLoading(false);
-            Toast.makeText(this, "Error preparing image", Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        RequestBody requestFile = RequestBody.create(MediaType.parse("image/*"), imageFile);
-        MultipartBody.Part imagePart = MultipartBody.Part.createFormData("file", imageFile.getName(), requestFile);
-
-        Call<Product> call = apiService.uploadProductImage(sessionManager.getAuthHeaderValue(), productId, imagePart);
-        call.enqueue(new Callback<Product>() {
+    /**
+     * If the screen is gone when the product is created, still send its photo
+     * so the product does not stay without one.
+     */
+    private Callback<Product> orphanedCreateCallback() {
+        Context appContext = getApplicationContext();
+        Uri imageUri = selectedImageUri;
+        boolean wifiOnly = checkboxWifiOnly.isChecked();
+        return new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
-                showLoading(false);
-                if (response.isSuccessful() && response.body() != null) {
-                    Toast.makeText(AddProductActivity.this, "Product added successfully", Toast.LENGTH_SHORT).show();
-                    finish();
-                } else {
-                    String errorMessage = "Failed to upload product image";
-                    try {
-                        if (response.errorBody() != null) {
-                            errorMessage = response.errorBody().string();
-                        }
-                    } catch (IOException e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    Toast.makeText(AddProductActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
+                if (!response.isSuccessful() || response.body() == null || imageUri == null) {
+                    return;
                 }
+                long productId = response.body().getId();
+                Log.d(TAG, "Screen closed, uploading photo of product " + productId + " in the background");
+                ImageUploadService.getInstance(appContext).uploadProductImage(productId, null, imageUri, wifiOnly,
+                        new ImageUploadService.Listener() {
+                    @Override
+                    public void onComplete(Product uploaded) {
+                        Log.d(TAG, "Background photo upload done for product " + productId);
+                    }
+
+                    @Override
+                    public void onPrepareFailed(IOException e) {
+                        Log.e(TAG, "Could not prepare photo of product " + productId, e);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        Log.e(TAG, "Background photo upload failed for product " + productId, t);
+                    }
+                });
             }
 
             @Override
             public void onFailure(Call<Product> call, Throwable t) {
-                showLoading(false);
-                Toast.makeText(AddProductActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+                Log.e(TAG, "Product creation failed after the screen closed", t);
             }
-        });
+        };
     }
 
-    private File createFileFromUri(Uri uri) {
-        try {
-            InputStream inputStream = getContentResolver().openInputStream(uri);
-            if (inputStream == null) return null;
+    private void uploadProductImage(Long productId) {
+        if (isFinishing()) {
+            return;
+        }
+        uploadProductId = productId;
+        uploadListener = new ImageUploadService.Listener() {
+            @Override
+            public void onProgress(long sentBytes, long totalBytes) {
+                progressUpload.setVisibility(View.VISIBLE);
+                progressUpload.setProgress((int) (sentBytes * 100 / Math.max(totalBytes, 1)));
+            }
 
-            File tempFile = new File(getCacheDir(), "temp_product_image.jpg");
-            FileOutputStream outputStream = new FileOutputStream(tempFile);
+            @Override
+            public void onComplete(Product product) {
+                showLoading(false);
+                Toast.makeText(AddProductActivity.this, "Product added successfully", Toast.LENGTH_SHORT).show();
+                finish();
+            }
 
-            byte[] buffer = new byte[1024];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
+            @Override
+            public void onDeferred() {
+                showLoading(false);
+                Toast.makeText(AddProductActivity.this, "Product added, the photo will be sent on Wi-Fi",
+                        Toast.LENGTH_LONG).show();
+                finish();
             }
 
-            outputStream.close();
-            inputStream.close();
+            @Override
+            public void onPrepareFailed(IOException e) {
+                showLoading(false);
+                Toast.makeText(AddProductActivity.this, "Error preparing image", Toast.LENGTH_SHORT).show();
+            }
 
-            return tempFile;
-        } catch (IOException e) {
-            Log.e(TAG, "Error creating file from URI", e);
-            return null;
+            @Override
+            public void onError(Throwable t) {
+                showLoading(false);
+                String message = ChunkedImageUploader.isRejected(t)
+                        ? "Product added, but the server refused the photo"
+                        : "Product added, the photo will finish uploading when back online";
+                Toast.makeText(AddProductActivity.this, message, Toast.LENGTH_LONG).show();
+                finish();
+            }
+        };
+        ImageUploadService.getInstance(this).uploadProductImage(productId, null, selectedImageUri,
+                checkboxWifiOnly.isChecked(), uploadListener);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (uploadListener != null) {
+            ImageUploadService.getInstance(this).removeListener(uploadProductId, uploadListener);
         }
     }
 
@@ -14,10 +14,10 @@ import android.widget.Toast;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.model.GlideUrl;
-import com.bumptech.glide.load.model.LazyHeaders;
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.adapters.ProductAdapter;
+import com.example.farmmobileapp.data.ChangeSet;
+import com.example.farmmobileapp.data.ProductRepository;
 import com.example.farmmobileapp.network.ApiService;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.Product;
@@ -30,8 +30,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import retrofit2.Call;
-import retrofit2.Callback;
+import retrofit2.HttpException;
 import retrofit2.Response;
 
 public class AvailableProductsActivity extends AppCompatActivity implements ProductAdapter.OnProductActionListener {
@@ -45,6 +44,8 @@ public class AvailableProductsActivity extends AppCompatActivity implements Prod
     private List<Product> productsList = new ArrayList<>();
     private ApiService apiService;
     private SessionManager sessionManager;
+    private ProductRepository productRepository;
+    private ProductRepository.Request productsRequest;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -74,6 +75,7 @@ public class AvailableProductsActivity extends AppCompatActivity implements Prod
 
         sessionManager = SessionManager.getInstance(this);
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        productRepository = ProductRepository.getInstance(this);
     }
 
     private void setupRecyclerView() {
@@ -153,23 +155,12 @@ public class AvailableProductsActivity extends AppCompatActivity implements Prod
             imageUrl = imageUrl.replace("localhost:8180", "192.168.88.247:8180");
             // Remove any double slashes and fix the path
             imageUrl = imageUrl.replace("//", "/");
-            
-            // Get auth token
-            String authToken = sessionManager.getAuthToken();
-            if (authToken != null) {
-                // Create GlideUrl with auth header
-                GlideUrl glideUrl = new GlideUrl(imageUrl, new LazyHeaders.Builder()
-                        .addHeader("Authorization", "Bearer " + authToken)
-                        .build());
-
-                Glide.with(this)
-                    .load(glideUrl)
-                    .placeholder(R.drawable.profile_placeholder)
-                    .error(R.drawable.profile_placeholder)
-                    .into(imageViewProfile);
-            } else {
-                imageViewProfile.setImageResource(R.drawable.profile_placeholder);
-            }
+
+            Glide.with(this)
+                .load(imageUrl)
+                .placeholder(R.drawable.profile_placeholder)
+                .error(R.drawable.profile_placeholder)
+                .into(imageViewProfile);
         } else {
             Log.d(TAG, "loadProfileImage: No profile image URL, using placeholder");
             imageViewProfile.setImageResource(R.drawable.profile_placeholder);
@@ -178,56 +169,71 @@ public class AvailableProductsActivity extends AppCompatActivity implements Prod
 
     private void loadProducts() {
         Log.d(TAG, "loadProducts: Starting to load products");
-        String authHeader = sessionManager.getAuthHeaderValue();
-        Log.d(TAG, "Loading all products with auth header: " + authHeader);
-        
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Log.e(TAG, "loadProducts: No auth header available");
             showError("Authentication required");
             return;
         }
 
-        apiService.getAllProducts(authHeader).enqueue(new Callback<List<Product>>() {
+        if (productsRequest != null) {
+            productsRequest.cancel();
+        }
+        // Stored products show immediately, the server is only asked when they are stale
+        productsRequest = productRepository.loadListing(ProductRepository.LISTING_ALL, apiService::getAllProducts,
+                false, new ProductRepository.Listener() {
             @Override
-            public void onResponse(Call<List<Product>> call, Response<List<Product>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Product> products = response.body();
-                    Log.d(TAG, "API Response received: " + products.size() + " products");
-                    productsList.clear();
-                    productsList.addAll(products);
-                    productAdapter.updateProducts(productsList);
-                    Log.d(TAG, "Loaded " + products.size() + " products");
-                    
-                    // Show products list if we have products, otherwise show empty view
-                    if (products.isEmpty()) {
-                        showEmptyView();
-                    } else {
-                        showProductsList();
-                    }
-                } else {
-                    Log.e(TAG, "loadProducts: API call failed with code " + response.code());
+            public void onCached(List<Product> products) {
+                Log.d(TAG, "Showing " + products.size() + " stored products");
+                showProducts(products);
+            }
+
+            @Override
+            public void onRevalidated(List<Product> products, ChangeSet changes) {
+                Log.d(TAG, "API Response received: " + products.size() + " products (" + changes + ")");
+                if (changes.isEmpty() && !productsList.isEmpty()) {
+                    return;
+                }
+                showProducts(products);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (t instanceof HttpException) {
+                    Response<?> response = ((HttpException) t).response();
+                    Log.e(TAG, "loadProducts: API call failed with code " + ((HttpException) t).code());
                     String errorMessage = "Failed to load products";
                     try {
-                        if (response.errorBody() != null) {
+                        if (response != null && response.errorBody() != null) {
                             errorMessage = response.errorBody().string();
                         }
                     } catch (IOException e) {
                         Log.e(TAG, "Error reading error body", e);
                     }
                     showError(errorMessage);
+                } else {
+                    Log.e(TAG, "loadProducts: Network error", t);
+                    showError("Network error: " + t.getMessage());
+                }
+                if (productsList.isEmpty()) {
                     showEmptyView();
                 }
             }
-
-            @Override
-            public void onFailure(Call<List<Product>> call, Throwable t) {
-                Log.e(TAG, "loadProducts: Network error", t);
-                showError("Network error: " + t.getMessage());
-                showEmptyView();
-            }
         });
     }
 
+    private void showProducts(List<Product> products) {
+        productsList.clear();
+        productsList.addAll(products);
+        productAdapter.updateProducts(productsList);
+
+        // Show products list if we have products, otherwise show empty view
+        if (products.isEmpty()) {
+            showEmptyView();
+        } else {
+            showProductsList();
+        }
+    }
+
     private void showProductsList() {
         // Show products list
         if (recyclerViewProducts != null) {
@@ -267,6 +273,14 @@ public class AvailableProductsActivity extends AppCompatActivity implements Prod
         loadProducts();
     }
 
+    @Override
+    protected void onDestroy() {
+        if (productsRequest != null) {
+            productsRequest.cancel();
+        }
+        super.onDestroy();
+    }
+
     private void showProgress() {
         // Show progress indicator
         if (recyclerViewProducts != null) {
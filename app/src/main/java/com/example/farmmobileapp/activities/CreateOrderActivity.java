@@ -14,14 +14,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.model.GlideUrl;
-import com.bumptech.glide.load.model.LazyHeaders;
 import com.example.farmmobileapp.R;
+import com.example.farmmobileapp.data.OrderOutbox;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.Order;
 import com.example.farmmobileapp.models.Product;
-import com.example.farmmobileapp.models.ApiResponse;
+import com.example.farmmobileapp.utils.ImageUtils;
+import com.example.farmmobileapp.utils.NetworkUtils;
 import com.example.farmmobileapp.utils.SessionManager;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
@@ -55,9 +56,12 @@ public class CreateOrderActivity extends AppCompatActivity {
     private ProgressBar progressBar;
 
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
     private Product currentProduct;
     private Long productId;
+    // One key per form, so submitting twice queues the order once
+    private final String orderKey = OrderOutbox.newIdempotencyKey();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -72,6 +76,7 @@ public class CreateOrderActivity extends AppCompatActivity {
 
         // Initialize API service and session manager
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
         sessionManager = SessionManager.getInstance(this);
 
         // Get product ID from intent
@@ -130,15 +135,14 @@ public class CreateOrderActivity extends AppCompatActivity {
     }
 
     private void loadProductDetails() {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Please login to continue", Toast.LENGTH_SHORT).show();
             finish();
             return;
         }
 
         showProgress();
-        apiService.getProductById(authHeader, productId).enqueue(new Callback<Product>() {
+        callRegistry.enqueue("product", apiService.getProductById(productId), new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
                 hideProgress();
@@ -168,26 +172,11 @@ public class CreateOrderActivity extends AppCompatActivity {
         textViewAvailableQty.setText(String.format("Available: %d units", product.getAvailableQuantity()));
 
         if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            String imageUrl = product.getImageUrl();
-            // Construct the full URL with server IP
-            imageUrl = "http://192.168.88.247:8180" + imageUrl;
-
-            // Get auth token
-            String authToken = sessionManager.getAuthToken();
-            if (authToken != null) {
-                // Create GlideUrl with auth header
-                GlideUrl glideUrl = new GlideUrl(imageUrl, new LazyHeaders.Builder()
-                        .addHeader("Authorization", "Bearer " + authToken)
-                        .build());
-
-                Glide.with(this)
-                        .load(glideUrl)
-                        .placeholder(R.drawable.placeholder_product)
-                        .error(R.drawable.placeholder_product)
-                        .into(imageViewProduct);
-            } else {
-                imageViewProduct.setImageResource(R.drawable.placeholder_product);
-            }
+            Glide.with(this)
+                    .load(ImageUtils.getFullImageUrl(product.getImageUrl(), false))
+                    .placeholder(R.drawable.placeholder_product)
+                    .error(R.drawable.placeholder_product)
+                    .into(imageViewProduct);
         } else {
             imageViewProduct.setImageResource(R.drawable.placeholder_product);
         }
@@ -252,8 +241,7 @@ public class CreateOrderActivity extends AppCompatActivity {
             return;
         }
 
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Please login to continue", Toast.LENGTH_SHORT).show();
             finish();
             return;
@@ -306,42 +294,18 @@ public class CreateOrderActivity extends AppCompatActivity {
         Log.d(TAG, "Order JSON: " + orderJson);
 
         showProgress();
-        apiService.createOrder(authHeader, order).enqueue(new Callback<ApiResponse<Order>>() {
-            @Override
-            public void onResponse(Call<ApiResponse<Order>> call, Response<ApiResponse<Order>> response) {
-                hideProgress();
-                if (response.isSuccessful() && response.body() != null) {
-                    ApiResponse<Order> apiResponse = response.body();
-                    if (apiResponse.isSuccess()) {
-                        Toast.makeText(CreateOrderActivity.this, "Order placed successfully", Toast.LENGTH_SHORT).show();
-                        setResult(RESULT_OK);
-                        finish();
-                    } else {
-                        String errorMessage = apiResponse.getMessage() != null ?
-                                apiResponse.getMessage() : "Failed to place order";
-                        Log.e(TAG, "Order creation failed: " + errorMessage);
-                        Toast.makeText(CreateOrderActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
-                    }
-                } else {
-                    String errorMessage = "Failed to place order";
-                    try {
-                        if (response.errorBody() != null) {
-                            errorMessage = response.errorBody().string();
-                            Log.e(TAG, "Order creation failed with error: " + errorMessage);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    Toast.makeText(CreateOrderActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<ApiResponse<Order>> call, Throwable t) {
-                hideProgress();
-                Log.e(TAG, "Network error during order creation", t);
-                Toast.makeText(CreateOrderActivity.this, "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+        OrderOutbox.getInstance(this).enqueue(orderKey, order, stored -> {
+            hideProgress();
+            if (!stored) {
+                Toast.makeText(CreateOrderActivity.this, "Failed to place order", Toast.LENGTH_SHORT).show();
+                return;
             }
+            String message = NetworkUtils.isNetworkAvailable(CreateOrderActivity.this)
+                    ? "Order placed successfully"
+                    : "Order placed, it will be sent when you are back online";
+            Toast.makeText(CreateOrderActivity.this, message, Toast.LENGTH_SHORT).show();
+            setResult(RESULT_OK);
+            finish();
         });
     }
 
@@ -7,6 +7,7 @@ import android.provider.MediaStore;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
@@ -18,20 +19,23 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.bumptech.glide.Glide;
 import com.example.farmmobileapp.R;
+import com.example.farmmobileapp.data.ChunkedImageUploader;
+import com.example.farmmobileapp.data.ImageUploadService;
+import com.example.farmmobileapp.data.ProductRepository;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.ProductPatch;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.utils.ErrorHandler;
 import com.example.farmmobileapp.utils.SessionManager;
+import com.google.gson.Gson;
 
-import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Map;
 
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -42,10 +46,14 @@ public class EditProductActivity extends AppCompatActivity {
     private EditText etName, etDescription, etPrice, etQuantity;
     private ImageView imageViewProduct;
     private Button buttonSave, buttonSelectImage;
-    private ProgressBar progressBar;
+    private ProgressBar progressBar, progressUpload;
+    private CheckBox checkboxWifiOnly;
     private Product currentProduct;
     private Uri selectedImageUri;
+    private long uploadProductId;
+    private ImageUploadService.Listener uploadListener;
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
 
     private final ActivityResultLauncher<Intent> imagePickerLauncher = registerForActivityResult(
@@ -76,8 +84,11 @@ public class EditProductActivity extends AppCompatActivity {
         buttonSave = findViewById(R.id.buttonSave);
         buttonSelectImage = findViewById(R.id.buttonSelectImage);
         progressBar = findViewById(R.id.progressBar);
+        progressUpload = findViewById(R.id.progressUpload);
+        checkboxWifiOnly = findViewById(R.id.checkboxWifiOnly);
 
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
         sessionManager = SessionManager.getInstance(this);
     }
 
@@ -102,13 +113,12 @@ public class EditProductActivity extends AppCompatActivity {
     }
 
     private void loadProductDetails(Long productId) {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        apiService.getProductById(authHeader, productId).enqueue(new Callback<Product>() {
+        callRegistry.enqueue("product", apiService.getProductById(productId), new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
                 if (response.isSuccessful() && response.body() != null) {
@@ -168,13 +178,37 @@ public class EditProductActivity extends AppCompatActivity {
             return;
         }
 
+        Product editedProduct = readEditedProduct();
+        if (editedProduct == null) {
+            return;
+        }
+
+        Map<String, Object> changes = ProductPatch.between(currentProduct, editedProduct);
+        if (changes.isEmpty()) {
+            if (selectedImageUri != null) {
+                uploadProductImage(currentProduct.getId());
+            } else {
+                Toast.makeText(this, "No changes to save", Toast.LENGTH_SHORT).show();
+            }
+            return;
+        }
+
         showLoading(true);
-        Call<Product> call = apiService.updateProduct(sessionManager.getAuthHeaderValue(), currentProduct.getId(), currentProduct);
-        call.enqueue(new Callback<Product>() {
+        // Only the edited fields go over the wire
+        Call<Product> call = apiService.patchProduct(currentProduct.getId(), changes);
+        callRegistry.enqueueDetached(call, new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
+                if (response.code() == 405 && "PATCH".equals(call.request().method())) {
+                    // Server without PATCH support, fall back to the full update
+                    Log.d(TAG, "PATCH not supported, sending full product");
+                    callRegistry.enqueueDetached(apiService.updateProduct(currentProduct.getId(),
+                            fullUpdateBody(editedProduct)), this);
+                    return;
+                }
                 if (response.isSuccessful() && response.body() != null) {
                     Product updatedProduct = response.body();
+                    ProductRepository.getInstance(EditProductActivity.this).saveProduct(updatedProduct);
                     if (selectedImageUri != null) {
                         uploadProductImage(updatedProduct.getId());
                     } else {
@@ -205,6 +239,56 @@ public class EditProductActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * @return Copy of the current product with the form values applied, or null if the form is invalid
+     */
+    private Product readEditedProduct() {
+        String name = etName.getText().toString().trim();
+        String description = etDescription.getText().toString().trim();
+        String priceStr = etPrice.getText().toString().trim();
+        String quantityStr = etQuantity.getText().toString().trim();
+
+        if (name.isEmpty()) {
+            etName.setError("Name is required");
+            return null;
+        }
+
+        Product edited = new Product();
+        edited.setId(currentProduct.getId());
+        edited.setName(name);
+        edited.setDescription(description);
+        edited.setImageUrl(currentProduct.getImageUrl());
+        edited.setOwnerId(currentProduct.getOwnerId());
+        edited.setOwnerName(currentProduct.getOwnerName());
+        try {
+            edited.setPrice(new BigDecimal(priceStr));
+        } catch (NumberFormatException e) {
+            etPrice.setError("Invalid price");
+            return null;
+        }
+        try {
+            edited.setAvailableQuantity(Integer.parseInt(quantityStr));
+        } catch (NumberFormatException e) {
+            etQuantity.setError("Invalid quantity");
+            return null;
+        }
+        return edited;
+    }
+
+    /**
+     * Body for the PUT fallback: a copy of the loaded product, with every
+     * field the server sent such as the owner, and the edited fields applied.
+     */
+    private Product fullUpdateBody(Product edited) {
+        Gson gson = RetrofitClient.getGson();
+        Product body = gson.fromJson(gson.toJson(currentProduct), Product.class);
+        body.setName(edited.getName());
+        body.setDescription(edited.getDescription());
+        body.setPrice(edited.getPrice());
+        body.setAvailableQuantity(edited.getAvailableQuantity());
+        return body;
+    }
+
     private void uploadProductImage(Long productId) {
         if (selectedImageUri == null) {
             Toast.makeText(this, "No image selected", Toast.LENGTH_SHORT).show();
@@ -212,48 +296,64 @@ public class EditProductActivity extends AppCompatActivity {
         }
 
         showLoading(true);
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             hideLoading();
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        try {
-            File imageFile = new File(selectedImageUri.getPath());
-            RequestBody requestFile = RequestBody.create(MediaType.parse("image/*"), imageFile);
-            MultipartBody.Part body = MultipartBody.Part.createFormData("file", imageFile.getName(), requestFile);
-
-            apiService.uploadProductImage(authHeader, productId, body).enqueue(new Callback<Product>() {
-                @Override
-                public void onResponse(Call<Product> call, Response<Product> response) {
-                    hideLoading();
-                    if (response.isSuccessful() && response.body() != null) {
-                        Toast.makeText(EditProductActivity.this, "Product updated successfully", Toast.LENGTH_SHORT).show();
-                        setResult(RESULT_OK);
-                        finish();
-                    } else {
-                        String errorMessage = "Failed to upload product image";
-                        try {
-                            if (response.errorBody() != null) {
-                                errorMessage = response.errorBody().string();
-                            }
-                        } catch (IOException e) {
-                            Log.e(TAG, "Error reading error body", e);
-                        }
-                        Toast.makeText(EditProductActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
-                    }
-                }
+        uploadProductId = productId;
+        uploadListener = new ImageUploadService.Listener() {
+            @Override
+            public void onProgress(long sentBytes, long totalBytes) {
+                progressUpload.setVisibility(View.VISIBLE);
+                progressUpload.setProgress((int) (sentBytes * 100 / Math.max(totalBytes, 1)));
+            }
 
-                @Override
-                public void onFailure(Call<Product> call, Throwable t) {
-                    hideLoading();
-                    Toast.makeText(EditProductActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                }
-            });
-        } catch (Exception e) {
-            hideLoading();
-            Toast.makeText(this, "Error preparing image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            @Override
+            public void onComplete(Product product) {
+                hideLoading();
+                Toast.makeText(EditProductActivity.this, "Product updated successfully", Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                finish();
+            }
+
+            @Override
+            public void onDeferred() {
+                hideLoading();
+                Toast.makeText(EditProductActivity.this, "Product updated, the photo will be sent on Wi-Fi",
+                        Toast.LENGTH_LONG).show();
+                setResult(RESULT_OK);
+                finish();
+            }
+
+            @Override
+            public void onPrepareFailed(IOException e) {
+                hideLoading();
+                Toast.makeText(EditProductActivity.this, "Error preparing image", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                hideLoading();
+                String message = ChunkedImageUploader.isRejected(t)
+                        ? "Product updated, but the server refused the photo"
+                        : "Product updated, the photo will finish uploading when back online";
+                Toast.makeText(EditProductActivity.this, message, Toast.LENGTH_LONG).show();
+                setResult(RESULT_OK);
+                finish();
+            }
+        };
+        // An unchanged photo is recognized by its hash and not sent again
+        ImageUploadService.getInstance(this).uploadProductImage(productId, currentProduct.getImageUrl(),
+                selectedImageUri, checkboxWifiOnly.isChecked(), uploadListener);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (uploadListener != null) {
+            ImageUploadService.getInstance(this).removeListener(uploadProductId, uploadListener);
         }
     }
 
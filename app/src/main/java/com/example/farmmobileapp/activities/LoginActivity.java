@@ -13,10 +13,12 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.AuthRequest;
 import com.example.farmmobileapp.models.AuthResponse;
 import com.example.farmmobileapp.models.ApiResponse;
+import com.example.farmmobileapp.utils.Session;
 import com.example.farmmobileapp.utils.SessionManager;
 import com.google.android.material.textfield.TextInputEditText;
 
@@ -31,6 +33,7 @@ public class LoginActivity extends AppCompatActivity {
     private TextView tvRegister;
     private ProgressBar progressBar;
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
 
     @Override
@@ -43,6 +46,7 @@ public class LoginActivity extends AppCompatActivity {
 
         // Initialize API service and session manager
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
         sessionManager = SessionManager.getInstance(this);
 
         // Check if user is already logged in
@@ -103,7 +107,7 @@ public class LoginActivity extends AppCompatActivity {
         AuthRequest authRequest = new AuthRequest(username, password);
         Log.e("LoginActivity", "Attempting login for user: " + username);
 
-        apiService.login(authRequest).enqueue(new Callback<ApiResponse<AuthResponse>>() {
+        callRegistry.enqueueDetached(apiService.login(authRequest), new Callback<ApiResponse<AuthResponse>>() {
             @Override
             public void onResponse(Call<ApiResponse<AuthResponse>> call, Response<ApiResponse<AuthResponse>> response) {
                 progressBar.setVisibility(View.GONE);
@@ -217,8 +221,9 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     private void navigateBasedOnRole() {
-        if (sessionManager.getUser() != null) {
-            String role = sessionManager.getUser().getRole();
+        Session session = sessionManager.getSession();
+        if (session.getUser() != null) {
+            String role = session.getRole();
 
             if ("FARMER".equals(role)) {
                 startActivity(new Intent(LoginActivity.this, MainFarmerActivity.class));
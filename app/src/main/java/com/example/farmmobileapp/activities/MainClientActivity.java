@@ -22,10 +22,18 @@ import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.adapters.ProductAdapter;
+import com.example.farmmobileapp.adapters.ProductRow;
+import com.example.farmmobileapp.data.ChangeSet;
+import com.example.farmmobileapp.data.ProductRepository;
+import com.example.farmmobileapp.data.ProductSearchController;
+import com.example.farmmobileapp.data.ProductSearchIndex;
 import com.example.farmmobileapp.decorations.GridSpacingItemDecoration;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
+import com.example.farmmobileapp.paging.Paginator;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.models.Product;
@@ -36,11 +44,14 @@ import com.example.farmmobileapp.utils.SessionManager;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 import retrofit2.Call;
 import retrofit2.Callback;
+import retrofit2.HttpException;
 import retrofit2.Response;
 
 public class MainClientActivity extends AppCompatActivity implements ProductAdapter.OnProductActionListener {
@@ -55,7 +66,16 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
     private ProductAdapter productAdapter;
     private List<Product> productsList = new ArrayList<>();
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
+    private Paginator<Product> productPaginator;
+    private ProductRepository productRepository;
+    private ProductRepository.Request syncRequest;
+    private boolean firstPageFromNetwork;
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private ProductSearchController searchController;
+    // Ids of the products loaded by the paginator, to drop repeats when the catalog shifts between pages
+    private final Set<Long> pagedProductIds = new HashSet<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -66,6 +86,9 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
         try {
             initViews();
             setupRecyclerView();
+            setupSearch();
+            setupPaging();
+            showStoredFirstPage();
             setupButtons();
             setupSwipeRefresh();
             loadUserProfile();
@@ -89,14 +112,21 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
 
         sessionManager = SessionManager.getInstance(this);
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
+        productRepository = ProductRepository.getInstance(this);
     }
 
     private void setupRecyclerView() {
         productAdapter = new ProductAdapter(this, productsList, true);
         productAdapter.setOnProductActionListener(this);
-        recyclerViewProducts.setLayoutManager(new GridLayoutManager(this, 2));
-        recyclerViewProducts.addItemDecoration(new GridSpacingItemDecoration(2, 16, true));
+        recyclerViewProducts.setLayoutManager(new GridLayoutManager(this, Constants.PRODUCT_GRID_SPAN_COUNT));
+        recyclerViewProducts.addItemDecoration(new GridSpacingItemDecoration(Constants.PRODUCT_GRID_SPAN_COUNT, 16, true));
         recyclerViewProducts.setAdapter(productAdapter);
+
+        // Fetch images a few rows ahead of the scroll, at the cell size; loads that fall out of range are cancelled
+        recyclerViewProducts.addOnScrollListener(new RecyclerViewPreloader<ProductRow>(Glide.with(this),
+                productAdapter, productAdapter.getPreloadSizeProvider(),
+                Constants.PRODUCT_PRELOAD_ROWS * Constants.PRODUCT_GRID_SPAN_COUNT));
         
         // Set up order click listener
         productAdapter.setOnOrderClickListener(product -> {
@@ -130,18 +160,81 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
 
     private void setupSwipeRefresh() {
         swipeRefreshLayout.setOnRefreshListener(() -> {
+            if (!RetrofitClient.isBackendReachable()) {
+                // Requests are served from the cache until the server answers again
+                Toast.makeText(this, "Server unreachable, showing saved products", Toast.LENGTH_SHORT).show();
+            }
+            syncProducts();
+        });
+    }
+
+    /**
+     * Swipe to refresh: apply what changed since the pages were loaded
+     * instead of reloading them.
+     */
+    private void syncProducts() {
+        if (!sessionManager.hasAuthToken() || productsList.isEmpty()) {
             loadAvailableProducts();
+            return;
+        }
+
+        if (syncRequest != null) {
+            syncRequest.cancel();
+        }
+        syncRequest = productRepository.sync(ProductRepository.LISTING_GRID, new ProductRepository.SyncListener() {
+            @Override
+            public void onSynced(List<Product> products, ChangeSet changes) {
+                swipeRefreshLayout.setRefreshing(false);
+                if (changes.isEmpty()) {
+                    return;
+                }
+                // Only the pages loaded so far, plus products the sync appended
+                Set<Long> shown = new HashSet<>();
+                for (Product product : productsList) {
+                    shown.add(product.getId());
+                }
+                for (Product product : changes.getAdded()) {
+                    shown.add(product.getId());
+                    // Not listed again when its page is loaded later
+                    pagedProductIds.add(product.getId());
+                }
+                List<Product> visible = new ArrayList<>();
+                for (Product product : products) {
+                    if (shown.contains(product.getId())) {
+                        visible.add(product);
+                    }
+                }
+                productsList.clear();
+                productsList.addAll(visible);
+                showProductsList();
+                if (productsList.isEmpty()) {
+                    showEmptyView();
+                } else {
+                    hideEmptyView();
+                }
+            }
+
+            @Override
+            public void onFullReloadNeeded() {
+                loadAvailableProducts();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                swipeRefreshLayout.setRefreshing(false);
+                Log.e(TAG, "Error syncing products", t);
+                Toast.makeText(MainClientActivity.this, "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            }
         });
     }
 
     private void loadUserProfile() {
-        String token = sessionManager.getAuthToken();
-        if (token == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Not logged in", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        apiService.getCurrentUser("Bearer " + token).enqueue(new Callback<ApiResponse<User>>() {
+        callRegistry.enqueue("profile", apiService.getCurrentUser(), new Callback<ApiResponse<User>>() {
             @Override
             public void onResponse(Call<ApiResponse<User>> call, Response<ApiResponse<User>> response) {
                 if (response.isSuccessful() && response.body() != null) {
@@ -196,43 +289,89 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
     }
 
     private void loadAvailableProducts() {
-        showProgress();
-        
-        String token = sessionManager.getAuthToken();
-        if (token == null) {
+        if (productsList.isEmpty()) {
+            showProgress();
+        }
+
+        if (!sessionManager.hasAuthToken()) {
             hideProgress();
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        String authHeader = "Bearer " + token;
-        Log.d(TAG, "Loading all products with auth header: " + authHeader);
-        
-        apiService.getAllProducts(authHeader).enqueue(new Callback<List<Product>>() {
+        productPaginator.refresh();
+    }
+
+    private void setupPaging() {
+        productPaginator = new Paginator<>(Paginator.fromPages(apiService::getProductsPage),
+                Constants.PRODUCT_PAGE_SIZE, Constants.PRODUCT_PREFETCH_DISTANCE,
+                new Paginator.Listener<Product>() {
             @Override
-            public void onResponse(Call<List<Product>> call, Response<List<Product>> response) {
-                hideProgress();
-                swipeRefreshLayout.setRefreshing(false);
-                
-                Log.d(TAG, "Response code: " + response.code());
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Product> products = response.body();
-                    Log.d(TAG, "Received " + products.size() + " products");
-                    
-                    productsList.clear();
-                    productsList.addAll(products);
-                    
-                    if (products.isEmpty()) {
-                        showEmptyView();
+            public void onPageLoaded(int page, List<Product> products) {
+                productRepository.savePage(ProductRepository.LISTING_GRID, page, Constants.PRODUCT_PAGE_SIZE,
+                        products, productPaginator.isEndReached());
+                if (page > 0) {
+                    // A product that moved down since the previous page comes back here; the adapter's
+                    // stable ids require each product to be listed once
+                    List<Product> fresh = new ArrayList<>(products.size());
+                    for (Product product : products) {
+                        if (product.getId() == null || pagedProductIds.add(product.getId())) {
+                            fresh.add(product);
+                        }
+                    }
+                    if (fresh.isEmpty()) {
+                        return;
+                    }
+                    // Targeted insert, rows already on screen are not rebound
+                    productsList.addAll(fresh);
+                    searchIndex.add(fresh);
+                    if (searchController.isSearching()) {
+                        searchController.onListingChanged();
                     } else {
-                        hideEmptyView();
-                        productAdapter.updateProducts(products);
+                        productAdapter.appendProducts(fresh);
+                    }
+                    return;
+                }
+
+                pagedProductIds.clear();
+                for (Product product : products) {
+                    if (product.getId() != null) {
+                        pagedProductIds.add(product.getId());
                     }
+                }
+
+                hideProgress();
+                firstPageFromNetwork = true;
+                if (!productsList.isEmpty() && ChangeSet.between(productsList, products).isEmpty()) {
+                    // Stored first page is still current, keep the rows already bound
+                    return;
+                }
+                productsList.clear();
+                productsList.addAll(products);
+                showProductsList();
+                if (products.isEmpty()) {
+                    showEmptyView();
                 } else {
-                    String errorMessage = "Error: " + response.code();
+                    hideEmptyView();
+                }
+            }
+
+            @Override
+            public void onLoadingChanged(boolean loading) {
+                if (!loading) {
+                    swipeRefreshLayout.setRefreshing(false);
+                }
+            }
+
+            @Override
+            public void onError(int page, Throwable t) {
+                hideProgress();
+                String errorMessage;
+                if (t instanceof HttpException) {
+                    Response<?> response = ((HttpException) t).response();
+                    errorMessage = "Error: " + t.getMessage();
                     try {
-                        if (response.errorBody() != null) {
+                        if (response != null && response.errorBody() != null) {
                             String errorBody = response.errorBody().string();
                             Log.e(TAG, "Error response body: " + errorBody);
                             errorMessage = errorBody;
@@ -240,24 +379,37 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
                     } catch (IOException e) {
                         Log.e(TAG, "Error reading error body", e);
                     }
-                    Toast.makeText(MainClientActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
+                } else {
+                    Log.e(TAG, "Error loading products page " + page, t);
+                    errorMessage = t.getMessage();
+                    if (errorMessage != null && errorMessage.contains("Expected BEGIN_OBJECT")) {
+                        errorMessage = "Server response format error. Please try again later.";
+                    }
+                    errorMessage = "Network error: " + errorMessage;
+                }
+                Toast.makeText(MainClientActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
+                if (productsList.isEmpty()) {
                     showEmptyView();
                 }
             }
+        });
+        productPaginator.attachTo(recyclerViewProducts);
+    }
 
-            @Override
-            public void onFailure(Call<List<Product>> call, Throwable t) {
-                hideProgress();
-                swipeRefreshLayout.setRefreshing(false);
-                Log.e(TAG, "Error loading products", t);
-                String errorMessage = t.getMessage();
-                if (errorMessage != null && errorMessage.contains("Expected BEGIN_OBJECT")) {
-                    errorMessage = "Server response format error. Please try again later.";
-                }
-                Toast.makeText(MainClientActivity.this, 
-                    "Network error: " + errorMessage, Toast.LENGTH_SHORT).show();
-                showEmptyView();
+    /**
+     * Show the first page stored by the previous session while the network loads.
+     */
+    private void showStoredFirstPage() {
+        productRepository.getCached(ProductRepository.LISTING_GRID, Constants.PRODUCT_PAGE_SIZE, products -> {
+            if (firstPageFromNetwork || products.isEmpty() || isFinishing()) {
+                return;
             }
+            Log.d(TAG, "Showing " + products.size() + " stored products");
+            hideProgress();
+            hideEmptyView();
+            productsList.clear();
+            productsList.addAll(products);
+            showProductsList();
         });
     }
 
@@ -283,42 +435,48 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
         recyclerViewProducts.setVisibility(View.VISIBLE);
     }
 
-    public void searchProducts(String query) {
-        if (query == null || query.trim().isEmpty()) {
+    private void setupSearch() {
+        searchController = new ProductSearchController(searchIndex, apiService, callRegistry,
+                (query, results) -> productAdapter.updateProducts(results));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchProducts(query);
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                searchProducts(newText);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Reindex the loaded products after they changed, and show them, or the
+     * matches of the current query.
+     */
+    private void showProductsList() {
+        searchIndex.update(productsList);
+        if (searchController.isSearching()) {
+            searchController.onListingChanged();
+        } else {
             productAdapter.updateProducts(productsList);
-            return;
         }
+    }
 
-        List<Product> filteredList = new ArrayList<>();
-        String lowerQuery = query.toLowerCase().trim();
-        
-        for (Product product : productsList) {
-            boolean matches = false;
-            
-            // Check name
-            if (product.getName() != null && 
-                product.getName().toLowerCase().contains(lowerQuery)) {
-                matches = true;
-            }
-            
-            // Check description
-            if (!matches && product.getDescription() != null && 
-                product.getDescription().toLowerCase().contains(lowerQuery)) {
-                matches = true;
-            }
-            
-            // Check farmer name
-            if (!matches && product.getFarmerName() != null && 
-                product.getFarmerName().toLowerCase().contains(lowerQuery)) {
-                matches = true;
-            }
-            
-            if (matches) {
-                filteredList.add(product);
-            }
+    /**
+     * Search by name, description or farmer name: loaded products first,
+     * then the rest of the catalog once the server answers.
+     */
+    public void searchProducts(String query) {
+        boolean wasSearching = searchController.isSearching();
+        searchController.setQuery(query);
+        if (wasSearching && !searchController.isSearching()) {
+            productAdapter.updateProducts(productsList);
         }
-        
-        productAdapter.updateProducts(filteredList);
     }
 
     // Implement ProductAdapter.OnProductActionListener methods
@@ -372,7 +530,25 @@ public class MainClientActivity extends AppCompatActivity implements ProductAdap
     @Override
     protected void onResume() {
         super.onResume();
-        loadAvailableProducts();
+        // Reloading would drop the pages scrolled so far, swipe to refresh instead
+        if (productsList.isEmpty() && !productPaginator.isLoading()) {
+            loadAvailableProducts();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (syncRequest != null) {
+            syncRequest.cancel();
+        }
+        if (productPaginator != null) {
+            productPaginator.cancel();
+            productPaginator.detach();
+        }
+        if (searchController != null) {
+            searchController.cancel();
+        }
+        super.onDestroy();
     }
 
     private void updateEmptyView() {
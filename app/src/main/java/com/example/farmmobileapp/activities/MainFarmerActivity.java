@@ -15,8 +15,11 @@ import com.bumptech.glide.Glide;
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.adapters.FarmerOrderAdapter;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
+import com.example.farmmobileapp.paging.OrderPaginator;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.Order;
+import com.example.farmmobileapp.models.OrderStatusUpdate;
 import com.example.farmmobileapp.models.User;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.utils.SessionManager;
@@ -33,6 +36,7 @@ import java.util.List;
 
 import retrofit2.Call;
 import retrofit2.Callback;
+import retrofit2.HttpException;
 import retrofit2.Response;
 
 public class MainFarmerActivity extends AppCompatActivity {
@@ -45,7 +49,9 @@ public class MainFarmerActivity extends AppCompatActivity {
     private FarmerOrderAdapter orderAdapter;
     private List<Order> ordersList = new ArrayList<>();
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
+    private OrderPaginator orderPaginator;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -55,6 +61,7 @@ public class MainFarmerActivity extends AppCompatActivity {
         try {
             initViews();
             setupRecyclerView();
+            setupPaging();
             setupButtons();
             loadUserProfile();
             loadOrders();
@@ -79,6 +86,7 @@ public class MainFarmerActivity extends AppCompatActivity {
         // Initialize SessionManager and ApiService first
         sessionManager = SessionManager.getInstance(this);
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
 
         // Try to find logout button, but don't crash if it doesn't exist
         try {
@@ -203,40 +211,47 @@ public class MainFarmerActivity extends AppCompatActivity {
     }
 
     private void loadOrders() {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
 
         showProgress();
-        apiService.getFarmerOrders(authHeader, 0, 20).enqueue(new Callback<ApiResponse<List<Order>>>() {
+        orderPaginator.refresh();
+    }
+
+    private void setupPaging() {
+        orderPaginator = new OrderPaginator(apiService, OrderPaginator.Scope.FARMER, new OrderPaginator.Listener() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Order>>> call, Response<ApiResponse<List<Order>>> response) {
-                hideProgress();
-                if (response.isSuccessful() && response.body() != null) {
-                    ApiResponse<List<Order>> apiResponse = response.body();
-                    if (apiResponse.isSuccess() && apiResponse.getData() != null) {
-                        ordersList.clear();
-                        ordersList.addAll(apiResponse.getData());
-                        orderAdapter.notifyDataSetChanged();
-                    } else {
-                        String errorMessage = apiResponse.getMessage() != null ? 
-                            apiResponse.getMessage() : "Failed to load orders";
-                        Toast.makeText(MainFarmerActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
-                    }
+            public void onOrdersLoaded(boolean reset, List<Order> orders) {
+                if (reset) {
+                    ordersList.clear();
+                    ordersList.addAll(orders);
+                    orderAdapter.updateOrders(ordersList);
                 } else {
-                    ErrorHandler.handleApiError(MainFarmerActivity.this, response);
+                    ordersList.addAll(orders);
+                    orderAdapter.appendOrders(orders);
                 }
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Order>>> call, Throwable t) {
-                hideProgress();
-                Toast.makeText(MainFarmerActivity.this, 
-                    "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onLoadingChanged(boolean loading) {
+                if (!loading) {
+                    hideProgress();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (t instanceof HttpException) {
+                    ErrorHandler.handleApiError(MainFarmerActivity.this, ((HttpException) t).response());
+                } else {
+                    Toast.makeText(MainFarmerActivity.this, 
+                        "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+                }
             }
         });
+        orderPaginator.attachTo(recyclerViewOrders);
     }
 
     private void parseRawResponse(Response<List<Order>> response) {
@@ -255,7 +270,7 @@ public class MainFarmerActivity extends AppCompatActivity {
 
                 ordersList.clear();
                 ordersList.addAll(orders);
-                orderAdapter.notifyDataSetChanged();
+                orderAdapter.updateOrders(ordersList);
 
             } else if (jsonElement.isJsonObject()) {
                 JsonObject jsonObject = jsonElement.getAsJsonObject();
@@ -269,7 +284,7 @@ public class MainFarmerActivity extends AppCompatActivity {
 
                         ordersList.clear();
                         ordersList.addAll(orders);
-                        orderAdapter.notifyDataSetChanged();
+                        orderAdapter.updateOrders(ordersList);
                     }
                 } else if (jsonObject.has("orders")) {
                     JsonElement ordersElement = jsonObject.get("orders");
@@ -280,13 +295,13 @@ public class MainFarmerActivity extends AppCompatActivity {
 
                         ordersList.clear();
                         ordersList.addAll(orders);
-                        orderAdapter.notifyDataSetChanged();
+                        orderAdapter.updateOrders(ordersList);
                     }
                 } else {
                     Order order = gson.fromJson(jsonObject, Order.class);
                     ordersList.clear();
                     ordersList.add(order);
-                    orderAdapter.notifyDataSetChanged();
+                    orderAdapter.updateOrders(ordersList);
                 }
             }
 
@@ -296,8 +311,7 @@ public class MainFarmerActivity extends AppCompatActivity {
     }
 
     private void updateOrderStatus(Long orderId, String newStatus) {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -313,19 +327,8 @@ public class MainFarmerActivity extends AppCompatActivity {
             return;
         }
 
-        // Create a new Order object with the updated status
-        Order updatedOrder = new Order();
-        updatedOrder.setId(existingOrder.getId());
-        updatedOrder.setProductId(existingOrder.getProductId());
-        updatedOrder.setQuantity(existingOrder.getQuantity());
-        updatedOrder.setTotalPrice(existingOrder.getTotalPrice());
-        updatedOrder.setDeliveryLocation(existingOrder.getDeliveryLocation());
-        updatedOrder.setStatus(newStatus);
-        updatedOrder.setClientId(existingOrder.getClientId());
-        updatedOrder.setFarmerId(existingOrder.getFarmerId());
-
         showProgress();
-        apiService.updateOrderStatus(authHeader, orderId, updatedOrder).enqueue(new Callback<ApiResponse<Order>>() {
+        callRegistry.enqueueDetached(apiService.updateOrderStatus(orderId, new OrderStatusUpdate(newStatus)), new Callback<ApiResponse<Order>>() {
             @Override
             public void onResponse(Call<ApiResponse<Order>> call, Response<ApiResponse<Order>> response) {
                 hideProgress();
@@ -345,4 +348,13 @@ public class MainFarmerActivity extends AppCompatActivity {
             }
         });
     }
+
+    @Override
+    protected void onDestroy() {
+        if (orderPaginator != null) {
+            orderPaginator.cancel();
+            orderPaginator.detach();
+        }
+        super.onDestroy();
+    }
 }
\ No newline at end of file
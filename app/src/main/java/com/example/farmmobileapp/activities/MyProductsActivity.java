@@ -16,15 +16,16 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
-import com.bumptech.glide.load.model.GlideUrl;
-import com.bumptech.glide.load.model.LazyHeaders;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.adapters.ProductAdapter;
+import com.example.farmmobileapp.data.ChangeSet;
+import com.example.farmmobileapp.data.ProductRepository;
 import com.example.farmmobileapp.models.Product;
 import com.example.farmmobileapp.models.User;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.utils.ErrorHandler;
 import com.example.farmmobileapp.utils.ImageUtils;
@@ -39,6 +40,7 @@ import java.util.List;
 
 import retrofit2.Call;
 import retrofit2.Callback;
+import retrofit2.HttpException;
 import retrofit2.Response;
 
 public class MyProductsActivity extends AppCompatActivity implements ProductAdapter.OnProductActionListener {
@@ -53,8 +55,10 @@ public class MyProductsActivity extends AppCompatActivity implements ProductAdap
     private ProductAdapter productAdapter;
     private List<Product> productsList = new ArrayList<>();
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
-    private boolean productsLoaded = false;
+    private ProductRepository productRepository;
+    private ProductRepository.Request productsRequest;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -90,6 +94,8 @@ public class MyProductsActivity extends AppCompatActivity implements ProductAdap
 
         sessionManager = SessionManager.getInstance(this);
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
+        productRepository = ProductRepository.getInstance(this);
     }
 
     private void setupToolbar() {
@@ -109,23 +115,12 @@ public class MyProductsActivity extends AppCompatActivity implements ProductAdap
             imageUrl = imageUrl.replace("localhost:8180", "192.168.88.247:8180");
             // Remove any double slashes and fix the path
             imageUrl = imageUrl.replace("//", "/");
-            
-            // Get auth token
-            String authToken = sessionManager.getAuthToken();
-            if (authToken != null) {
-                // Create GlideUrl with auth header
-                GlideUrl glideUrl = new GlideUrl(imageUrl, new LazyHeaders.Builder()
-                        .addHeader("Authorization", "Bearer " + authToken)
-                        .build());
-
-                Glide.with(this)
-                    .load(glideUrl)
-                    .placeholder(R.drawable.profile_placeholder)
-                    .error(R.drawable.profile_placeholder)
-                    .into(imageViewProfile);
-            } else {
-                imageViewProfile.setImageResource(R.drawable.profile_placeholder);
-            }
+
+            Glide.with(this)
+                .load(imageUrl)
+                .placeholder(R.drawable.profile_placeholder)
+                .error(R.drawable.profile_placeholder)
+                .into(imageViewProfile);
         } else {
             Log.d(TAG, "loadProfileImage: No profile image URL, using placeholder");
             imageViewProfile.setImageResource(R.drawable.profile_placeholder);
@@ -139,7 +134,7 @@ public class MyProductsActivity extends AppCompatActivity implements ProductAdap
     }
 
     private void setupSwipeRefresh() {
-        swipeRefreshLayout.setOnRefreshListener(this::loadProducts);
+        swipeRefreshLayout.setOnRefreshListener(this::syncProducts);
     }
 
     private void setupFab() {
@@ -150,50 +145,121 @@ public class MyProductsActivity extends AppCompatActivity implements ProductAdap
     }
 
     private void loadProducts() {
+        loadProducts(false);
+    }
+
+    /**
+     * @param forceRefresh Ask the server even if the stored list is still fresh
+     */
+    private void loadProducts(boolean forceRefresh) {
         Log.d(TAG, "loadProducts: Starting to load products");
-        showProgress();
-        String authHeader = sessionManager.getAuthHeaderValue();
-        
-        if (authHeader == null) {
+        if (productsList.isEmpty()) {
+            showProgress();
+        }
+        if (!sessionManager.hasAuthToken()) {
             Log.e(TAG, "loadProducts: No auth header available");
+            hideProgress();
             showError("Authentication required");
             return;
         }
 
-        apiService.getCurrentFarmerProducts(authHeader).enqueue(new Callback<List<Product>>() {
+        if (productsRequest != null) {
+            productsRequest.cancel();
+        }
+        User user = sessionManager.getUser();
+        String listing = ProductRepository.mineListing(user != null ? user.getId() : null);
+        productsRequest = productRepository.loadListing(listing, apiService::getCurrentFarmerProducts,
+                forceRefresh, new ProductRepository.Listener() {
             @Override
-            public void onResponse(Call<List<Product>> call, Response<List<Product>> response) {
+            public void onCached(List<Product> products) {
+                Log.d(TAG, "loadProducts: " + products.size() + " products from disk");
                 hideProgress();
-                if (response.isSuccessful() && response.body() != null) {
-                    List<Product> products = response.body();
-                    Log.d(TAG, "loadProducts: Successfully loaded " + products.size() + " products");
-                    productsList.clear();
-                    productsList.addAll(products);
-                    productAdapter.notifyDataSetChanged();
-                    updateEmptyView();
-                } else {
-                    Log.e(TAG, "loadProducts: API call failed with code " + response.code());
-                    String errorMessage = "Failed to load products";
-                    try {
-                        if (response.errorBody() != null) {
-                            errorMessage = response.errorBody().string();
-                        }
-                    } catch (IOException e) {
-                        Log.e(TAG, "Error reading error body", e);
-                    }
-                    showError(errorMessage);
+                showProducts(products);
+            }
+
+            @Override
+            public void onRevalidated(List<Product> products, ChangeSet changes) {
+                hideProgress();
+                Log.d(TAG, "loadProducts: Successfully loaded " + products.size() + " products (" + changes + ")");
+                if (changes.isEmpty() && !productsList.isEmpty()) {
+                    return;
                 }
+                showProducts(products);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                showLoadError(t);
             }
+        });
+    }
 
+    /**
+     * Swipe to refresh: download only what changed since the last load.
+     */
+    private void syncProducts() {
+        if (!sessionManager.hasAuthToken()) {
+            hideProgress();
+            showError("Authentication required");
+            return;
+        }
+
+        if (productsRequest != null) {
+            productsRequest.cancel();
+        }
+        User user = sessionManager.getUser();
+        String listing = ProductRepository.mineListing(user != null ? user.getId() : null);
+        productsRequest = productRepository.sync(listing, new ProductRepository.SyncListener() {
             @Override
-            public void onFailure(Call<List<Product>> call, Throwable t) {
-                Log.e(TAG, "loadProducts: Network error", t);
+            public void onSynced(List<Product> products, ChangeSet changes) {
                 hideProgress();
-                showError("Network error: " + t.getMessage());
+                Log.d(TAG, "syncProducts: " + changes);
+                if (changes.isEmpty() && !productsList.isEmpty()) {
+                    return;
+                }
+                showProducts(products);
+            }
+
+            @Override
+            public void onFullReloadNeeded() {
+                loadProducts(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                showLoadError(t);
             }
         });
     }
 
+    private void showLoadError(Throwable t) {
+        hideProgress();
+        if (t instanceof HttpException) {
+            Response<?> response = ((HttpException) t).response();
+            Log.e(TAG, "loadProducts: API call failed with code " + ((HttpException) t).code());
+            String errorMessage = "Failed to load products";
+            try {
+                if (response != null && response.errorBody() != null) {
+                    errorMessage = response.errorBody().string();
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error reading error body", e);
+            }
+            showError(errorMessage);
+        } else {
+            Log.e(TAG, "loadProducts: Network error", t);
+            showError("Network error: " + t.getMessage());
+        }
+        updateEmptyView();
+    }
+
+    private void showProducts(List<Product> products) {
+        productsList.clear();
+        productsList.addAll(products);
+        productAdapter.updateProducts(productsList);
+        updateEmptyView();
+    }
+
     private void showProgress() {
         progressBar.setVisibility(View.VISIBLE);
         recyclerViewProducts.setVisibility(View.GONE);
@@ -233,19 +299,19 @@ public class MyProductsActivity extends AppCompatActivity implements ProductAdap
 
     @Override
     public void onDeleteClick(Product product) {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             showError("Authentication required");
             return;
         }
 
         showProgress();
-        apiService.deleteProduct(authHeader, product.getId()).enqueue(new Callback<Void>() {
+        callRegistry.enqueueDetached(apiService.deleteProduct(product.getId()), new Callback<Void>() {
             @Override
             public void onResponse(Call<Void> call, Response<Void> response) {
                 if (response.isSuccessful()) {
                     Toast.makeText(MyProductsActivity.this, "Product deleted successfully", Toast.LENGTH_SHORT).show();
-                    loadProducts(); // Refresh the product list
+                    productRepository.removeProduct(product.getId());
+                    loadProducts(true); // Refresh the product list
                 } else {
                     String errorMessage = "Failed to delete product";
                     try {
@@ -269,20 +335,16 @@ public class MyProductsActivity extends AppCompatActivity implements ProductAdap
     @Override
     protected void onResume() {
         super.onResume();
-        if (!productsLoaded) {
-            loadProducts();
-            productsLoaded = true;
-        }
+        // Cheap when the stored list is fresh: read from disk, no request
+        loadProducts();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Clear any pending callbacks
-        if (apiService != null) {
-            // Cancel any pending requests
-            // Note: This is a placeholder as Retrofit doesn't provide direct request cancellation
-            // You might want to implement a custom solution if needed
+        // Pending calls are cancelled by callRegistry, stop the store load as well
+        if (productsRequest != null) {
+            productsRequest.cancel();
         }
         
         // Clear the adapter
@@ -13,14 +13,15 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
+import com.example.farmmobileapp.data.OrderOutbox;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.Order;
 import com.example.farmmobileapp.models.Product;
-import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.utils.Constants;
-import com.example.farmmobileapp.utils.ErrorHandler;
 import com.example.farmmobileapp.utils.ImageUtils;
+import com.example.farmmobileapp.utils.NetworkUtils;
 import com.example.farmmobileapp.utils.SessionManager;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.android.material.textfield.TextInputEditText;
@@ -47,8 +48,11 @@ public class OrderFormActivity extends AppCompatActivity {
 
     private Product product;
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
     private Long productId;
+    // One key per form, so submitting twice queues the order once
+    private final String orderKey = OrderOutbox.newIdempotencyKey();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -65,6 +69,7 @@ public class OrderFormActivity extends AppCompatActivity {
 
             // Initialize API service and session manager
             apiService = RetrofitClient.getClient().create(ApiService.class);
+            callRegistry = CallRegistry.of(this);
             sessionManager = SessionManager.getInstance(this);
 
             // Get product ID from intent
@@ -172,14 +177,13 @@ public class OrderFormActivity extends AppCompatActivity {
     }
 
     private void loadProductDetails(Long productId) {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
 
         showProgress();
-        apiService.getProductById(authHeader, productId).enqueue(new Callback<Product>() {
+        callRegistry.enqueue("product", apiService.getProductById(productId), new Callback<Product>() {
             @Override
             public void onResponse(Call<Product> call, Response<Product> response) {
                 hideProgress();
@@ -312,8 +316,7 @@ public class OrderFormActivity extends AppCompatActivity {
     }
 
     private void placeOrder() {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -343,31 +346,17 @@ public class OrderFormActivity extends AppCompatActivity {
             order.setStatus("PENDING");
 
             showProgress();
-            apiService.createOrder(authHeader, order).enqueue(new Callback<ApiResponse<Order>>() {
-                @Override
-                public void onResponse(Call<ApiResponse<Order>> call, Response<ApiResponse<Order>> response) {
-                    hideProgress();
-                    if (response.isSuccessful() && response.body() != null) {
-                        ApiResponse<Order> apiResponse = response.body();
-                        if (apiResponse.isSuccess()) {
-                            Toast.makeText(OrderFormActivity.this, "Order placed successfully", Toast.LENGTH_SHORT).show();
-                            finish();
-                        } else {
-                            String errorMessage = apiResponse.getMessage() != null ? 
-                                apiResponse.getMessage() : "Failed to place order";
-                            Toast.makeText(OrderFormActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        ErrorHandler.handleApiError(OrderFormActivity.this, response);
-                    }
-                }
-
-                @Override
-                public void onFailure(Call<ApiResponse<Order>> call, Throwable t) {
-                    hideProgress();
-                    Toast.makeText(OrderFormActivity.this, 
-                        "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            OrderOutbox.getInstance(this).enqueue(orderKey, order, stored -> {
+                hideProgress();
+                if (!stored) {
+                    Toast.makeText(OrderFormActivity.this, "Failed to place order", Toast.LENGTH_SHORT).show();
+                    return;
                 }
+                String message = NetworkUtils.isNetworkAvailable(OrderFormActivity.this)
+                        ? "Order placed successfully"
+                        : "Order placed, it will be sent when you are back online";
+                Toast.makeText(OrderFormActivity.this, message, Toast.LENGTH_SHORT).show();
+                finish();
             });
         } catch (NumberFormatException e) {
             Toast.makeText(this, "Invalid quantity format", Toast.LENGTH_SHORT).show();
@@ -15,9 +15,13 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.adapters.OrderAdapter;
+import com.example.farmmobileapp.data.OrderOutbox;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
+import com.example.farmmobileapp.paging.OrderPaginator;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.Order;
+import com.example.farmmobileapp.models.OrderStatusUpdate;
 import com.example.farmmobileapp.models.User;
 import com.example.farmmobileapp.utils.SessionManager;
 import com.example.farmmobileapp.utils.ErrorHandler;
@@ -28,6 +32,7 @@ import java.util.List;
 
 import retrofit2.Call;
 import retrofit2.Callback;
+import retrofit2.HttpException;
 import retrofit2.Response;
 
 public class OrdersActivity extends AppCompatActivity {
@@ -39,8 +44,16 @@ public class OrdersActivity extends AppCompatActivity {
     private OrderAdapter orderAdapter;
     private List<Order> ordersList = new ArrayList<>();
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
     private boolean isFarmer;
+    private OrderPaginator orderPaginator;
+    private final OrderOutbox.Listener outboxListener = new OrderOutbox.Listener() {
+        @Override
+        public void onOrderSent(Order order) {
+            loadOrders();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -55,6 +68,7 @@ public class OrdersActivity extends AppCompatActivity {
 
         // Initialize API service and session manager
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
         sessionManager = SessionManager.getInstance(this);
 
         // Get user type from session
@@ -63,6 +77,10 @@ public class OrdersActivity extends AppCompatActivity {
 
         // Setup RecyclerView
         setupRecyclerView();
+        setupPaging();
+
+        // Orders placed offline show up once the outbox has sent them
+        OrderOutbox.getInstance(this).addListener(outboxListener);
 
         // Load orders
         loadOrders();
@@ -89,52 +107,69 @@ public class OrdersActivity extends AppCompatActivity {
     }
 
     private void loadOrders() {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Authentication required", Toast.LENGTH_SHORT).show();
             return;
         }
 
         showProgress();
-        apiService.getClientOrders(authHeader, 0, 20).enqueue(new Callback<ApiResponse<List<Order>>>() {
+        orderPaginator.refresh();
+    }
+
+    private void setupPaging() {
+        OrderPaginator.Scope scope = isFarmer ? OrderPaginator.Scope.FARMER : OrderPaginator.Scope.CLIENT;
+        orderPaginator = new OrderPaginator(apiService, scope, new OrderPaginator.Listener() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Order>>> call, Response<ApiResponse<List<Order>>> response) {
-                hideProgress();
-                if (response.isSuccessful() && response.body() != null) {
-                    ApiResponse<List<Order>> apiResponse = response.body();
-                    if (apiResponse.isSuccess() && apiResponse.getData() != null) {
-                        ordersList.clear();
-                        ordersList.addAll(apiResponse.getData());
-                        orderAdapter.notifyDataSetChanged();
+            public void onOrdersLoaded(boolean reset, List<Order> orders) {
+                if (reset) {
+                    ordersList.clear();
+                    ordersList.addAll(orders);
+                    orderAdapter.updateOrders(ordersList);
+                    if (ordersList.isEmpty()) {
+                        showEmptyView();
                     } else {
-                        String errorMessage = apiResponse.getMessage() != null ? 
-                            apiResponse.getMessage() : "Failed to load orders";
-                        Toast.makeText(OrdersActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
+                        hideEmptyView();
                     }
                 } else {
-                    ErrorHandler.handleApiError(OrdersActivity.this, response);
+                    ordersList.addAll(orders);
+                    orderAdapter.appendOrders(orders);
                 }
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Order>>> call, Throwable t) {
-                hideProgress();
-                Toast.makeText(OrdersActivity.this, 
-                    "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onLoadingChanged(boolean loading) {
+                if (!loading) {
+                    hideProgress();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (t instanceof HttpException) {
+                    ErrorHandler.handleApiError(OrdersActivity.this, ((HttpException) t).response());
+                } else {
+                    Toast.makeText(OrdersActivity.this, 
+                        "Network error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+                if (ordersList.isEmpty()) {
+                    showEmptyView();
+                } else {
+                    hideEmptyView();
+                }
             }
         });
+        orderPaginator.attachTo(recyclerViewOrders);
     }
 
     private void updateOrderStatus(Order order, String newStatus) {
-        String authHeader = sessionManager.getAuthHeaderValue();
-        if (authHeader == null) {
+        if (!sessionManager.hasAuthToken()) {
             Toast.makeText(this, "Please login to continue", Toast.LENGTH_SHORT).show();
             finish();
             return;
         }
 
         showProgress();
-        apiService.updateOrderStatus(authHeader, order.getId(), order).enqueue(new Callback<ApiResponse<Order>>() {
+        callRegistry.enqueueDetached(apiService.updateOrderStatus(order.getId(), new OrderStatusUpdate(newStatus)), new Callback<ApiResponse<Order>>() {
             @Override
             public void onResponse(Call<ApiResponse<Order>> call, Response<ApiResponse<Order>> response) {
                 hideProgress();
@@ -181,6 +216,16 @@ public class OrdersActivity extends AppCompatActivity {
         recyclerViewOrders.setVisibility(View.VISIBLE);
     }
 
+    @Override
+    protected void onDestroy() {
+        OrderOutbox.getInstance(this).removeListener(outboxListener);
+        if (orderPaginator != null) {
+            orderPaginator.cancel();
+            orderPaginator.detach();
+        }
+        super.onDestroy();
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
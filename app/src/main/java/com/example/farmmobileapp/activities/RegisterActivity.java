@@ -24,23 +24,20 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import com.example.farmmobileapp.R;
+import com.example.farmmobileapp.data.ImageUploadService;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.AuthResponse;
+import com.example.farmmobileapp.models.Product;
 import com.example.farmmobileapp.models.RegisterRequest;
+import com.example.farmmobileapp.utils.Session;
 import com.example.farmmobileapp.utils.SessionManager;
 import com.example.farmmobileapp.utils.ErrorHandler;
 import com.google.android.material.textfield.TextInputEditText;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -58,6 +55,7 @@ public class RegisterActivity extends AppCompatActivity {
     private ImageView imgProfile;
     private ProgressBar progressBar;
     private ApiService apiService;
+    private CallRegistry callRegistry;
     private SessionManager sessionManager;
     private Uri selectedImageUri;
 
@@ -71,6 +69,7 @@ public class RegisterActivity extends AppCompatActivity {
 
         // Initialize API service and session manager
         apiService = RetrofitClient.getClient().create(ApiService.class);
+        callRegistry = CallRegistry.of(this);
         sessionManager = SessionManager.getInstance(this);
 
         // Set up click listeners
@@ -164,7 +163,7 @@ public class RegisterActivity extends AppCompatActivity {
 
     private void registerUser(String name, String username, String email, String password, String role) {
         RegisterRequest request = new RegisterRequest(name, username, email, password, role);
-        apiService.register(request).enqueue(new Callback<ApiResponse<AuthResponse>>() {
+        callRegistry.enqueueDetached(apiService.register(request), new Callback<ApiResponse<AuthResponse>>() {
             @Override
             public void onResponse(Call<ApiResponse<AuthResponse>> call, Response<ApiResponse<AuthResponse>> response) {
                 progressBar.setVisibility(View.GONE);
@@ -174,7 +173,11 @@ public class RegisterActivity extends AppCompatActivity {
                         AuthResponse authResponse = apiResponse.getData();
                         sessionManager.saveAuthToken(authResponse.getToken());
                         sessionManager.saveUser(authResponse.getUser());
-                        navigateBasedOnRole();
+                        if (selectedImageUri != null) {
+                            uploadProfileImage();
+                        } else {
+                            navigateBasedOnRole();
+                        }
                     } else {
                         String errorMessage = apiResponse.getMessage() != null ? 
                             apiResponse.getMessage() : "Registration failed";
@@ -194,8 +197,9 @@ public class RegisterActivity extends AppCompatActivity {
     }
 
     private void navigateBasedOnRole() {
-        if (sessionManager.getUser() != null) {
-            String role = sessionManager.getUser().getRole();
+        Session session = sessionManager.getSession();
+        if (session.getUser() != null) {
+            String role = session.getRole();
 
             if ("FARMER".equals(role)) {
                 startActivity(new Intent(RegisterActivity.this, MainFarmerActivity.class));
@@ -254,32 +258,35 @@ public class RegisterActivity extends AppCompatActivity {
             imgProfile.setImageURI(selectedImageUri);
         }
     }
-    private File getFileFromUri(Uri uri) {
-        try {
-            // Use ContentResolver to open an input stream from the URI
-            InputStream inputStream = getContentResolver().openInputStream(uri);
-            if (inputStream == null) return null;
-
-            // Create a temporary file
-            File file = new File(getCacheDir(), "temp_profile_image.jpg");
-            FileOutputStream outputStream = new FileOutputStream(file);
-
-            // Copy the content
-            byte[] buffer = new byte[4 * 1024]; // 4KB buffer
-            int read;
-            while ((read = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, read);
-            }
-            outputStream.flush();
 
-            // Close streams
-            inputStream.close();
-            outputStream.close();
+    /**
+     * Upload the picked profile picture once the account exists. A failed
+     * upload does not block the new user; it can be changed later.
+     */
+    private void uploadProfileImage() {
+        progressBar.setVisibility(View.VISIBLE);
+        ImageUploadService.getInstance(this).uploadProfileImage(sessionManager.getSession().getUserId(),
+                selectedImageUri, new ImageUploadService.Listener() {
+                    @Override
+                    public void onComplete(Product product) {
+                        progressBar.setVisibility(View.GONE);
+                        navigateBasedOnRole();
+                    }
 
-            return file;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
+                    @Override
+                    public void onPrepareFailed(IOException e) {
+                        progressBar.setVisibility(View.GONE);
+                        Toast.makeText(RegisterActivity.this, "Error preparing image", Toast.LENGTH_SHORT).show();
+                        navigateBasedOnRole();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        progressBar.setVisibility(View.GONE);
+                        Toast.makeText(RegisterActivity.this, "Profile picture could not be uploaded",
+                                Toast.LENGTH_SHORT).show();
+                        navigateBasedOnRole();
+                    }
+                });
     }
 }
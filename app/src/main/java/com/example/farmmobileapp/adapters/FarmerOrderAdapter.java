@@ -9,6 +9,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.farmmobileapp.R;
@@ -16,21 +17,29 @@ import com.example.farmmobileapp.network.ApiService;
 import com.example.farmmobileapp.network.RetrofitClient;
 import com.example.farmmobileapp.models.Order;
 import com.example.farmmobileapp.models.ApiResponse;
+import com.example.farmmobileapp.utils.AppExecutors;
 import com.example.farmmobileapp.utils.SessionManager;
 import com.example.farmmobileapp.utils.ErrorHandler;
 
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
+/**
+ * Orders received by a farmer, formatted into {@link OrderRow}s and diffed
+ * by order id on background threads.
+ */
 public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.OrderViewHolder> {
 
+    private final AsyncListDiffer<OrderRow> differ = new AsyncListDiffer<>(this, OrderDiffCallback.INSTANCE);
+    private final AppExecutors executors = AppExecutors.getInstance();
+    // Last list handed to the differ; appends build on it even while a diff is still running
+    private List<OrderRow> submitted = Collections.emptyList();
     private Context context;
-    private List<Order> orders;
     private ApiService apiService;
     private SessionManager sessionManager;
     private OnOrderStatusChangeListener statusChangeListener;
@@ -41,9 +50,10 @@ public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.
 
     public FarmerOrderAdapter(Context context, List<Order> orders) {
         this.context = context;
-        this.orders = orders;
         this.apiService = RetrofitClient.getClient().create(ApiService.class);
         this.sessionManager = SessionManager.getInstance(context);
+        setHasStableIds(true);
+        updateOrders(orders);
     }
 
     public void setOnOrderStatusChangeListener(OnOrderStatusChangeListener listener) {
@@ -59,19 +69,61 @@ public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        Order order = orders.get(position);
-        holder.bind(order);
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull OrderViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(OrderDiffCallback.PAYLOAD_STATUS)) {
+            holder.bindStatus(differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return orders.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
     }
 
+    /**
+     * Show a new list. It is copied, formatted and diffed off the main
+     * thread; only rows that changed are rebound.
+     */
     public void updateOrders(List<Order> newOrders) {
-        this.orders.clear();
-        this.orders.addAll(newOrders);
-        notifyDataSetChanged();
+        List<Order> copy = new ArrayList<>(newOrders);
+        executors.listRows().execute(() -> {
+            List<OrderRow> rows = OrderRow.from(copy);
+            executors.mainThread().execute(() -> submit(rows));
+        });
+    }
+
+    /**
+     * Add orders to the end of the list without rebinding existing rows.
+     *
+     * @param moreOrders Orders to append
+     */
+    public void appendOrders(List<Order> moreOrders) {
+        List<Order> copy = new ArrayList<>(moreOrders);
+        executors.listRows().execute(() -> {
+            List<OrderRow> rows = OrderRow.from(copy);
+            executors.mainThread().execute(() -> {
+                List<OrderRow> combined = new ArrayList<>(submitted.size() + rows.size());
+                combined.addAll(submitted);
+                combined.addAll(rows);
+                submit(combined);
+            });
+        });
+    }
+
+    private void submit(List<OrderRow> rows) {
+        submitted = rows;
+        differ.submitList(rows);
     }
 
     class OrderViewHolder extends RecyclerView.ViewHolder {
@@ -84,6 +136,7 @@ public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.
         private TextView textViewOrderDate;
         private Button buttonAccept;
         private Button buttonReject;
+        private Order order;
 
         OrderViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -96,29 +149,36 @@ public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.
             textViewOrderDate = itemView.findViewById(R.id.textViewOrderDate);
             buttonAccept = itemView.findViewById(R.id.buttonAccept);
             buttonReject = itemView.findViewById(R.id.buttonReject);
-        }
-
-        void bind(Order order) {
-            textViewOrderId.setText(String.format("Order #%d", order.getId()));
-            textViewClientName.setText(order.getClientName());
-            textViewProductName.setText(order.getProductName());
-            textViewQuantity.setText(String.format("Quantity: %.1f", order.getQuantity()));
-            textViewTotalPrice.setText(String.format("Total: $%.2f", order.getTotalPrice()));
-            textViewStatus.setText(order.getStatus());
-            textViewOrderDate.setText(new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault())
-                .format(order.getOrderDate()));
 
+            // Listeners read the bound order, so partial rebinds keep them current
             buttonAccept.setOnClickListener(v -> {
                 if (statusChangeListener != null) {
                     statusChangeListener.onOrderStatusChanged(order, "CONFIRMED");
                 }
             });
-
             buttonReject.setOnClickListener(v -> {
                 if (statusChangeListener != null) {
                     statusChangeListener.onOrderStatusChanged(order, "CANCELLED");
                 }
             });
         }
+
+        void bind(OrderRow row) {
+            textViewOrderId.setText(row.orderNumberText);
+            textViewClientName.setText(row.clientName);
+            textViewProductName.setText(row.productName);
+            textViewQuantity.setText(row.quantityText);
+            textViewTotalPrice.setText(row.totalText);
+            textViewOrderDate.setText(row.dateText);
+            bindStatus(row);
+        }
+
+        /**
+         * Rebind the status only.
+         */
+        void bindStatus(OrderRow row) {
+            order = row.order;
+            textViewStatus.setText(row.status);
+        }
     }
 }
@@ -10,6 +10,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -18,22 +19,30 @@ import com.example.farmmobileapp.models.Order;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.network.ApiService;
 import com.example.farmmobileapp.network.RetrofitClient;
-import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.ImageUtils;
 import com.example.farmmobileapp.utils.ErrorHandler;
 import com.example.farmmobileapp.utils.SessionManager;
 
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
+/**
+ * Order rows, formatted into {@link OrderRow}s and diffed by order id on
+ * background threads.
+ */
 public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHolder> {
 
+    private final AsyncListDiffer<OrderRow> differ = new AsyncListDiffer<>(this, OrderDiffCallback.INSTANCE);
+    private final AppExecutors executors = AppExecutors.getInstance();
+    // Last list handed to the differ; appends build on it even while a diff is still running
+    private List<OrderRow> submitted = Collections.emptyList();
     private Context context;
-    private List<Order> orders;
     private ApiService apiService;
     private SessionManager sessionManager;
     private boolean isFarmer;
@@ -45,10 +54,11 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
 
     public OrderAdapter(Context context, List<Order> orders, boolean isFarmer) {
         this.context = context;
-        this.orders = orders;
         this.isFarmer = isFarmer;
         this.apiService = RetrofitClient.getClient().create(ApiService.class);
         this.sessionManager = SessionManager.getInstance(context);
+        setHasStableIds(true);
+        updateOrders(orders);
     }
 
     public void setOnOrderStatusChangeListener(OnOrderStatusChangeListener listener) {
@@ -64,18 +74,61 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
 
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        Order order = orders.get(position);
-        holder.bind(order);
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull OrderViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(OrderDiffCallback.PAYLOAD_STATUS)) {
+            holder.bindStatus(differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return orders.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
     }
 
+    /**
+     * Show a new list. It is copied, formatted and diffed off the main
+     * thread; only rows that changed are rebound.
+     */
     public void updateOrders(List<Order> newOrders) {
-        this.orders = newOrders;
-        notifyDataSetChanged();
+        List<Order> copy = new ArrayList<>(newOrders);
+        executors.listRows().execute(() -> {
+            List<OrderRow> rows = OrderRow.from(copy);
+            executors.mainThread().execute(() -> submit(rows));
+        });
+    }
+
+    /**
+     * Add orders to the end of the list without rebinding existing rows.
+     *
+     * @param moreOrders Orders to append
+     */
+    public void appendOrders(List<Order> moreOrders) {
+        List<Order> copy = new ArrayList<>(moreOrders);
+        executors.listRows().execute(() -> {
+            List<OrderRow> rows = OrderRow.from(copy);
+            executors.mainThread().execute(() -> {
+                List<OrderRow> combined = new ArrayList<>(submitted.size() + rows.size());
+                combined.addAll(submitted);
+                combined.addAll(rows);
+                submit(combined);
+            });
+        });
+    }
+
+    private void submit(List<OrderRow> rows) {
+        submitted = rows;
+        differ.submitList(rows);
     }
 
     class OrderViewHolder extends RecyclerView.ViewHolder {
@@ -91,6 +144,7 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
         private Button buttonAccept;
         private Button buttonReject;
         private Button buttonComplete;
+        private Order order;
 
         public OrderViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -117,65 +171,71 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
                 buttonReject.setVisibility(View.GONE);
                 buttonComplete.setVisibility(View.GONE);
             }
+
+            // Listeners read the bound order, so partial rebinds keep them current
+            buttonAccept.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onStatusChange(order, "ACCEPTED");
+                }
+            });
+            buttonReject.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onStatusChange(order, "REJECTED");
+                }
+            });
+            buttonComplete.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onStatusChange(order, "COMPLETED");
+                }
+            });
         }
 
-        public void bind(Order order) {
+        public void bind(OrderRow row) {
             // Set product details
-            if (order.getProduct() != null) {
-                textViewProductName.setText(order.getProduct().getName());
-                if (order.getProduct().getImageUrl() != null && !order.getProduct().getImageUrl().isEmpty()) {
-                    Glide.with(context)
-                        .load(order.getProduct().getImageUrl())
-                        .placeholder(R.drawable.placeholder_product)
-                        .error(R.drawable.placeholder_product)
-                        .into(imageViewProduct);
-                } else {
-                    imageViewProduct.setImageResource(R.drawable.placeholder_product);
-                }
+            textViewProductName.setText(row.productName);
+            if (row.imageUrl != null) {
+                Glide.with(context)
+                    .load(row.thumbnail)
+                    .apply(ImageUtils.LIST_THUMBNAIL_OPTIONS)
+                    .into(imageViewProduct);
+            } else {
+                imageViewProduct.setImageResource(R.drawable.placeholder_product);
             }
 
             // Set order details
-            textViewQuantity.setText(String.format("Quantity: %.1f", order.getQuantity()));
-            textViewTotalPrice.setText(String.format("Total: $%.2f", order.getTotalPrice()));
-            textViewDeliveryLocation.setText("Delivery: " + order.getDeliveryLocation());
-            
-            // Set status with color
-            String status = order.getStatus();
-            textViewStatus.setText("Status: " + status);
-            switch (status) {
-                case "PENDING":
-                    textViewStatus.setTextColor(context.getResources().getColor(android.R.color.holo_orange_light));
-                    break;
-                case "ACCEPTED":
-                    textViewStatus.setTextColor(context.getResources().getColor(android.R.color.holo_green_light));
-                    break;
-                case "REJECTED":
-                    textViewStatus.setTextColor(context.getResources().getColor(android.R.color.holo_red_light));
-                    break;
-                case "COMPLETED":
-                    textViewStatus.setTextColor(context.getResources().getColor(android.R.color.holo_blue_light));
-                    break;
-            }
-
-            // Set date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
-            if (order.getOrderDate() != null) {
-                textViewDate.setText("Ordered: " + dateFormat.format(order.getOrderDate()));
-            } else if (order.getCreatedAt() != null) {
-                textViewDate.setText("Ordered: " + dateFormat.format(order.getCreatedAt()));
+            textViewQuantity.setText(row.quantityText);
+            textViewTotalPrice.setText(row.totalText);
+            textViewDeliveryLocation.setText(row.deliveryText);
+            if (row.orderedText != null) {
+                textViewDate.setText(row.orderedText);
             }
 
             // Set user names
-            if (order.getClient() != null) {
-                textViewClientName.setText("Client: " + order.getClient().getUsername());
+            if (row.clientText != null) {
+                textViewClientName.setText(row.clientText);
             }
-            if (order.getFarmer() != null) {
-                textViewFarmerName.setText("Farmer: " + order.getFarmer().getUsername());
+            if (row.farmerText != null) {
+                textViewFarmerName.setText(row.farmerText);
+            }
+
+            bindStatus(row);
+        }
+
+        /**
+         * Rebind the status line and action buttons only.
+         */
+        void bindStatus(OrderRow row) {
+            order = row.order;
+
+            // Set status with color
+            textViewStatus.setText(row.statusText);
+            if (row.statusColorRes != 0) {
+                textViewStatus.setTextColor(context.getResources().getColor(row.statusColorRes));
             }
 
             // Set button states based on order status
             if (isFarmer) {
-                switch (order.getStatus()) {
+                switch (row.status) {
                     case "PENDING":
                         buttonAccept.setVisibility(View.VISIBLE);
                         buttonReject.setVisibility(View.VISIBLE);
@@ -192,26 +252,7 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.OrderViewHol
                         buttonComplete.setVisibility(View.GONE);
                         break;
                 }
-
-                // Set click listeners for buttons
-                buttonAccept.setOnClickListener(v -> {
-                    if (listener != null) {
-                        listener.onStatusChange(order, "ACCEPTED");
-                    }
-                });
-
-                buttonReject.setOnClickListener(v -> {
-                    if (listener != null) {
-                        listener.onStatusChange(order, "REJECTED");
-                    }
-                });
-
-                buttonComplete.setOnClickListener(v -> {
-                    if (listener != null) {
-                        listener.onStatusChange(order, "COMPLETED");
-                    }
-                });
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.example.farmmobileapp.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+/**
+ * Matches order rows by id for the order adapters' background diffing.
+ *
+ * Rows compare by what they display. A change limited to the status yields
+ * {@link #PAYLOAD_STATUS}, so only the status line and the action buttons
+ * of the row are rebound.
+ */
+class OrderDiffCallback extends DiffUtil.ItemCallback<OrderRow> {
+    static final String PAYLOAD_STATUS = "status";
+
+    static final OrderDiffCallback INSTANCE = new OrderDiffCallback();
+
+    private OrderDiffCallback() {
+    }
+
+    @Override
+    public boolean areItemsTheSame(@NonNull OrderRow oldItem, @NonNull OrderRow newItem) {
+        return oldItem.id == newItem.id;
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull OrderRow oldItem, @NonNull OrderRow newItem) {
+        return oldItem.status.equals(newItem.status) && oldItem.sameExceptStatus(newItem);
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull OrderRow oldItem, @NonNull OrderRow newItem) {
+        return oldItem.sameExceptStatus(newItem) ? PAYLOAD_STATUS : null;
+    }
+}
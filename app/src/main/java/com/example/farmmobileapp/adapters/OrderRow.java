@@ -0,0 +1,105 @@
+package com.example.farmmobileapp.adapters;
+
+import com.example.farmmobileapp.models.Order;
+import com.example.farmmobileapp.utils.ImageUtils;
+import com.example.farmmobileapp.utils.SizedImage;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * What an order row displays, formatted once off the main thread when the
+ * list arrives so binding only assigns strings.
+ */
+public final class OrderRow {
+    public final Order order;
+    public final long id;
+    public final String orderNumberText;
+    public final String productName;
+    /** Full product image URL, null for the placeholder */
+    public final String imageUrl;
+    /** {@link #imageUrl} as a model resized to the image view, null for the placeholder */
+    public final SizedImage thumbnail;
+    public final String quantityText;
+    public final String totalText;
+    public final String deliveryText;
+    /** Order date, or creation date when the server sent none; null if neither */
+    public final String dateText;
+    /** {@link #dateText} with the "Ordered: " label, null if there is no date */
+    public final String orderedText;
+    public final String clientName;
+    public final String clientText;
+    public final String farmerText;
+    public final String status;
+    public final String statusText;
+    /** Color resource for the status, 0 for the default text color */
+    public final int statusColorRes;
+
+    private OrderRow(Order order, SimpleDateFormat dateFormat) {
+        this.order = order;
+        id = order.getId() != null ? order.getId() : -System.identityHashCode(order) - 1L;
+        orderNumberText = "Order #" + order.getId();
+        productName = order.getProductName();
+        imageUrl = ImageUtils.getFullImageUrl(order.getProductImageUrl(), false);
+        thumbnail = imageUrl != null ? new SizedImage(imageUrl) : null;
+        quantityText = String.format("Quantity: %.1f", order.getQuantity());
+        totalText = String.format("Total: $%.2f", order.getTotalPrice());
+        deliveryText = "Delivery: " + order.getDeliveryLocation();
+        Date date = order.getOrderDate() != null ? order.getOrderDate() : order.getCreatedAt();
+        dateText = date != null ? dateFormat.format(date) : null;
+        orderedText = dateText != null ? "Ordered: " + dateText : null;
+        clientName = order.getClientName();
+        clientText = order.getClient() != null ? "Client: " + order.getClient().getUsername() : null;
+        farmerText = order.getFarmer() != null ? "Farmer: " + order.getFarmer().getUsername() : null;
+        status = order.getStatus() != null ? order.getStatus() : "";
+        statusText = "Status: " + status;
+        statusColorRes = statusColorOf(status);
+    }
+
+    /**
+     * Build rows for a list; call off the main thread.
+     */
+    public static List<OrderRow> from(List<Order> orders) {
+        // SimpleDateFormat is not thread-safe, one per batch
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault());
+        List<OrderRow> rows = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            rows.add(new OrderRow(order, dateFormat));
+        }
+        return rows;
+    }
+
+    private static int statusColorOf(String status) {
+        switch (status) {
+            case "PENDING":
+                return android.R.color.holo_orange_light;
+            case "ACCEPTED":
+                return android.R.color.holo_green_light;
+            case "REJECTED":
+                return android.R.color.holo_red_light;
+            case "COMPLETED":
+                return android.R.color.holo_blue_light;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return Whether everything but the status looks the same
+     */
+    boolean sameExceptStatus(OrderRow other) {
+        return Objects.equals(productName, other.productName)
+                && Objects.equals(imageUrl, other.imageUrl)
+                && Objects.equals(quantityText, other.quantityText)
+                && Objects.equals(totalText, other.totalText)
+                && Objects.equals(deliveryText, other.deliveryText)
+                && Objects.equals(dateText, other.dateText)
+                && Objects.equals(clientName, other.clientName)
+                && Objects.equals(clientText, other.clientText)
+                && Objects.equals(farmerText, other.farmerText);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.farmmobileapp.adapters;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,26 +11,43 @@ import android.widget.TextView;
 import android.widget.ImageButton;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.model.GlideUrl;
-import com.bumptech.glide.load.model.LazyHeaders;
-import com.bumptech.glide.request.RequestOptions;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.util.ViewPreloadSizeProvider;
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.models.Product;
-import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.ImageLoadStats;
 import com.example.farmmobileapp.utils.ImageUtils;
-import com.example.farmmobileapp.utils.SessionManager;
-import com.example.farmmobileapp.network.RetrofitClient;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
-public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder> {
-    private List<Product> products;
+/**
+ * Product rows, formatted into {@link ProductRow}s and diffed by product id
+ * on background threads.
+ *
+ * Also the model provider for a Glide {@code RecyclerViewPreloader}: images
+ * are preloaded with the same options as bound rows, at the size of the
+ * first laid out image view, so a preloaded image is a memory cache hit.
+ */
+public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductViewHolder>
+        implements ListPreloader.PreloadModelProvider<ProductRow> {
+    private final AsyncListDiffer<ProductRow> differ = new AsyncListDiffer<>(this, ProductDiffCallback.INSTANCE);
+    private final ViewPreloadSizeProvider<ProductRow> preloadSizeProvider = new ViewPreloadSizeProvider<>();
+    private final AppExecutors executors = AppExecutors.getInstance();
+    // Last list handed to the differ; appends build on it even while a diff is still running
+    private List<ProductRow> submitted = Collections.emptyList();
     private Context context;
     private boolean showOrderButton;
     private OnProductActionListener listener;
@@ -46,8 +64,9 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
 
     public ProductAdapter(Context context, List<Product> products, boolean showOrderButton) {
         this.context = context;
-        this.products = products;
         this.showOrderButton = showOrderButton;
+        setHasStableIds(true);
+        updateProducts(products);
     }
 
     public void setOnProductActionListener(OnProductActionListener listener) {
@@ -67,18 +86,86 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
 
     @Override
     public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        Product product = products.get(position);
-        holder.bind(product);
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ProductViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(ProductDiffCallback.PAYLOAD_STOCK)) {
+            holder.bindStock(differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return products.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
+    }
+
+    /**
+     * @return Size provider that learns the cell image size from the first row laid out
+     */
+    public ViewPreloadSizeProvider<ProductRow> getPreloadSizeProvider() {
+        return preloadSizeProvider;
+    }
+
+    @NonNull
+    @Override
+    public List<ProductRow> getPreloadItems(int position) {
+        List<ProductRow> rows = differ.getCurrentList();
+        if (position >= rows.size() || rows.get(position).imageUrl == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(rows.get(position));
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull ProductRow row) {
+        return Glide.with(context)
+                .load(row.thumbnail)
+                .apply(ImageUtils.GRID_THUMBNAIL_OPTIONS);
     }
 
+    /**
+     * Show a new list. It is copied, formatted and diffed off the main
+     * thread; only rows that changed are rebound.
+     */
     public void updateProducts(List<Product> newProducts) {
-        this.products = newProducts;
-        notifyDataSetChanged();
+        List<Product> copy = new ArrayList<>(newProducts);
+        executors.listRows().execute(() -> {
+            List<ProductRow> rows = ProductRow.from(copy);
+            executors.mainThread().execute(() -> submit(rows));
+        });
+    }
+
+    /**
+     * Add items to the end of the current list without rebinding existing rows.
+     *
+     * @param moreProducts Items to append
+     */
+    public void appendProducts(List<Product> moreProducts) {
+        List<Product> copy = new ArrayList<>(moreProducts);
+        executors.listRows().execute(() -> {
+            List<ProductRow> rows = ProductRow.from(copy);
+            executors.mainThread().execute(() -> {
+                List<ProductRow> combined = new ArrayList<>(submitted.size() + rows.size());
+                combined.addAll(submitted);
+                combined.addAll(rows);
+                submit(combined);
+            });
+        });
+    }
+
+    private void submit(List<ProductRow> rows) {
+        submitted = rows;
+        differ.submitList(rows);
     }
 
     class ProductViewHolder extends RecyclerView.ViewHolder {
@@ -91,6 +178,27 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
         private Button orderButton;
         private ImageButton editButton;
         private ImageButton deleteButton;
+        private Product product;
+        // Set while Glide is called from bind; memory cache hits are delivered before it returns
+        private boolean binding;
+        private boolean imageReady;
+        private final RequestListener<Drawable> imageListener = new RequestListener<Drawable>() {
+            @Override
+            public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model,
+                                        @NonNull Target<Drawable> target, boolean isFirstResource) {
+                return false;
+            }
+
+            @Override
+            public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model,
+                                           Target<Drawable> target, @NonNull DataSource dataSource,
+                                           boolean isFirstResource) {
+                if (binding) {
+                    imageReady = true;
+                }
+                return false;
+            }
+        };
 
         public ProductViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -103,74 +211,60 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
             orderButton = itemView.findViewById(R.id.buttonOrder);
             editButton = itemView.findViewById(R.id.buttonEdit);
             deleteButton = itemView.findViewById(R.id.buttonDelete);
+            preloadSizeProvider.setView(imageView);
 
             // Set visibility based on showOrderButton flag
             orderButton.setVisibility(showOrderButton ? View.VISIBLE : View.GONE);
             editButton.setVisibility(showOrderButton ? View.GONE : View.VISIBLE);
             deleteButton.setVisibility(showOrderButton ? View.GONE : View.VISIBLE);
-        }
 
-        public void bind(Product product) {
-            nameTextView.setText(product.getName());
-            // Format price as integer with FBU currency
-            priceTextView.setText(String.format(Locale.getDefault(), "%,d FBU", product.getPrice().intValue()));
-            descriptionTextView.setText(product.getDescription());
-            farmerNameTextView.setText("Farmer: " + product.getFarmerName());
-            availableQtyTextView.setText(String.format(Locale.getDefault(), "Available: %d", product.getAvailableQuantity()));
-
-            // Load image using Glide
-            if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-                String imageUrl = product.getImageUrl();
-                // Remove leading slash and 'images/' prefix if present
-                if (imageUrl.startsWith("/")) {
-                    imageUrl = imageUrl.substring(1);
+            // Listeners read the bound product, so partial rebinds keep them current
+            orderButton.setOnClickListener(v -> {
+                if (orderClickListener != null) {
+                    orderClickListener.onOrderClick(product);
                 }
-                if (imageUrl.startsWith("images/")) {
-                    imageUrl = imageUrl.substring(7); // Remove "images/" prefix
+            });
+            editButton.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onEditClick(product);
                 }
-                // Construct full URL for product images without /api/
-                imageUrl = RetrofitClient.getBaseUrl().replace("/api", "") + "images/" + imageUrl;
-
-                // Get auth token from SessionManager
-                String authToken = SessionManager.getInstance(context).getAuthToken();
-                if (authToken != null) {
-                    // Create GlideUrl with auth header
-                    GlideUrl glideUrl = new GlideUrl(imageUrl, new LazyHeaders.Builder()
-                            .addHeader("Authorization", "Bearer " + authToken)
-                            .build());
-
-                    Glide.with(context)
-                        .load(glideUrl)
-                        .placeholder(R.drawable.placeholder_product)
-                        .error(R.drawable.placeholder_product)
-                        .into(imageView);
-                } else {
-                    imageView.setImageResource(R.drawable.placeholder_product);
+            });
+            deleteButton.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onDeleteClick(product);
                 }
+            });
+        }
+
+        public void bind(ProductRow row) {
+            nameTextView.setText(row.name);
+            descriptionTextView.setText(row.description);
+            farmerNameTextView.setText(row.farmerText);
+            bindStock(row);
+
+            if (row.imageUrl != null) {
+                // The image client adds the auth header, see FarmAppGlideModule
+                imageReady = false;
+                binding = true;
+                Glide.with(context)
+                    .load(row.thumbnail)
+                    .apply(ImageUtils.GRID_THUMBNAIL_OPTIONS)
+                    .listener(imageListener)
+                    .into(imageView);
+                binding = false;
+                ImageLoadStats.getInstance().recordBind(imageReady);
             } else {
                 imageView.setImageResource(R.drawable.placeholder_product);
             }
+        }
 
-            // Set click listeners
-            if (showOrderButton) {
-                orderButton.setOnClickListener(v -> {
-                    if (orderClickListener != null) {
-                        orderClickListener.onOrderClick(product);
-                    }
-                });
-            } else {
-                editButton.setOnClickListener(v -> {
-                    if (listener != null) {
-                        listener.onEditClick(product);
-                    }
-                });
-
-                deleteButton.setOnClickListener(v -> {
-                    if (listener != null) {
-                        listener.onDeleteClick(product);
-                    }
-                });
-            }
+        /**
+         * Rebind price and stock only, leaving the image alone.
+         */
+        void bindStock(ProductRow row) {
+            product = row.product;
+            priceTextView.setText(row.priceText);
+            availableQtyTextView.setText(row.availableText);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.example.farmmobileapp.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+/**
+ * Matches product rows by id for the product adapters' background diffing.
+ *
+ * Rows compare by what they display. A change limited to price or stock
+ * yields {@link #PAYLOAD_STOCK}, so the row updates its numbers without
+ * reloading the image.
+ */
+class ProductDiffCallback extends DiffUtil.ItemCallback<ProductRow> {
+    static final String PAYLOAD_STOCK = "stock";
+
+    static final ProductDiffCallback INSTANCE = new ProductDiffCallback();
+
+    private ProductDiffCallback() {
+    }
+
+    @Override
+    public boolean areItemsTheSame(@NonNull ProductRow oldItem, @NonNull ProductRow newItem) {
+        return oldItem.id == newItem.id;
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull ProductRow oldItem, @NonNull ProductRow newItem) {
+        return oldItem.sameExceptStock(newItem) && oldItem.sameStock(newItem);
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull ProductRow oldItem, @NonNull ProductRow newItem) {
+        return oldItem.sameExceptStock(newItem) ? PAYLOAD_STOCK : null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.farmmobileapp.adapters;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.utils.ImageUtils;
+import com.example.farmmobileapp.utils.SizedImage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * What a product row displays, formatted once off the main thread when the
+ * list arrives so binding only assigns strings.
+ */
+public final class ProductRow {
+    public final Product product;
+    public final long id;
+    public final String name;
+    public final String description;
+    public final String priceText;
+    public final String availableText;
+    public final String farmerText;
+    /** Full image URL, null for the placeholder */
+    public final String imageUrl;
+    /** {@link #imageUrl} as a model resized to the image view, null for the placeholder */
+    public final SizedImage thumbnail;
+    public final String editDescription;
+    public final String deleteDescription;
+    public final String orderDescription;
+
+    private ProductRow(Product product, Locale locale) {
+        this.product = product;
+        id = product.getId() != null ? product.getId() : -System.identityHashCode(product) - 1L;
+        name = product.getName();
+        description = product.getDescription();
+        // Format price as integer with FBU currency
+        priceText = product.getPrice() != null
+                ? String.format(locale, "%,d FBU", product.getPrice().intValue()) : "";
+        availableText = String.format(locale, "Available: %d", product.getAvailableQuantity());
+        farmerText = "Farmer: " + product.getFarmerName();
+        imageUrl = ImageUtils.getFullImageUrl(product.getImageUrl(), false);
+        thumbnail = imageUrl != null ? new SizedImage(imageUrl) : null;
+        editDescription = "Edit " + name;
+        deleteDescription = "Delete " + name;
+        orderDescription = "Order " + name;
+    }
+
+    /**
+     * Build rows for a list; call off the main thread.
+     */
+    public static List<ProductRow> from(List<Product> products) {
+        Locale locale = Locale.getDefault();
+        List<ProductRow> rows = new ArrayList<>(products.size());
+        for (Product product : products) {
+            rows.add(new ProductRow(product, locale));
+        }
+        return rows;
+    }
+
+    /**
+     * @return Whether everything but price and stock looks the same
+     */
+    boolean sameExceptStock(ProductRow other) {
+        return Objects.equals(name, other.name)
+                && Objects.equals(description, other.description)
+                && Objects.equals(farmerText, other.farmerText)
+                && Objects.equals(imageUrl, other.imageUrl);
+    }
+
+    boolean sameStock(ProductRow other) {
+        return priceText.equals(other.priceText) && availableText.equals(other.availableText);
+    }
+}
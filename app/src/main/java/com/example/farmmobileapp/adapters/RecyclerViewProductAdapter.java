@@ -2,7 +2,6 @@ package com.example.farmmobileapp.adapters;
 
 import android.content.Context;
 import android.content.Intent;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,23 +11,26 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.farmmobileapp.R;
 import com.example.farmmobileapp.activities.OrderFormActivity;
 import com.example.farmmobileapp.models.Product;
-import com.example.farmmobileapp.network.RetrofitClient;
+import com.example.farmmobileapp.utils.AppExecutors;
 import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.ImageUtils;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 public class RecyclerViewProductAdapter extends RecyclerView.Adapter<RecyclerViewProductAdapter.ProductViewHolder> {
 
     private static final String TAG = "RecyclerViewProductAdapter";
+    private final AsyncListDiffer<ProductRow> differ = new AsyncListDiffer<>(this, ProductDiffCallback.INSTANCE);
+    private final AppExecutors executors = AppExecutors.getInstance();
     private Context context;
-    private List<Product> products;
     private boolean isOwnerView; // true for farmer's own products, false for marketplace
 
     // Interface for click callbacks
@@ -42,8 +44,9 @@ public class RecyclerViewProductAdapter extends RecyclerView.Adapter<RecyclerVie
 
     public RecyclerViewProductAdapter(Context context, List<Product> products, boolean isOwnerView) {
         this.context = context;
-        this.products = products;
         this.isOwnerView = isOwnerView;
+        setHasStableIds(true);
+        updateProducts(products);
     }
 
     public void setOnProductActionListener(OnProductActionListener listener) {
@@ -59,13 +62,26 @@ public class RecyclerViewProductAdapter extends RecyclerView.Adapter<RecyclerVie
 
     @Override
     public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        Product product = products.get(position);
-        holder.bind(product, isOwnerView);
+        holder.bind(differ.getCurrentList().get(position), isOwnerView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ProductViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(ProductDiffCallback.PAYLOAD_STOCK)) {
+            holder.bindStock(differ.getCurrentList().get(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return products.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
     }
 
     public class ProductViewHolder extends RecyclerView.ViewHolder {
@@ -76,6 +92,7 @@ public class RecyclerViewProductAdapter extends RecyclerView.Adapter<RecyclerVie
         private TextView tvQuantity;
         private Button btnAction1;
         private ImageButton btnAction2;
+        private Product product;
 
         public ProductViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -86,33 +103,41 @@ public class RecyclerViewProductAdapter extends RecyclerView.Adapter<RecyclerVie
             tvQuantity = itemView.findViewById(R.id.textViewAvailableQty);
             btnAction1 = itemView.findViewById(R.id.buttonOrder);
             btnAction2 = itemView.findViewById(R.id.buttonDelete);
-        }
 
-        public void bind(Product product, boolean isOwnerView) {
-            // Set product details
-            tvProductName.setText(product.getName());
-            tvDescription.setText(product.getDescription());
-            tvPrice.setText(String.format(Locale.getDefault(), "%,d FBU", product.getPrice().intValue()));
-            tvQuantity.setText(String.format(Locale.getDefault(), "%d available", product.getAvailableQuantity()));
-
-            // Load product image
-            if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-                String imageUrl = product.getImageUrl();
-
-                if (imageUrl != null && !imageUrl.isEmpty()) {
-                    if (imageUrl.startsWith("/")) {
-                        imageUrl = RetrofitClient.getBaseUrl() + imageUrl.substring(1);
-                    } else {
-                        imageUrl = RetrofitClient.getBaseUrl() + "images/" + imageUrl;
+            // Listeners read the bound product, so partial rebinds keep them current
+            btnAction1.setOnClickListener(v -> {
+                if (isOwnerView) {
+                    if (actionListener != null) {
+                        actionListener.onEditProduct(product);
                     }
+                    return;
+                }
+                if (actionListener != null) {
+                    actionListener.onOrderProduct(product);
+                }
+                // Keep the old intent as fallback
+                Intent intent = new Intent(context, OrderFormActivity.class);
+                intent.putExtra(Constants.EXTRA_PRODUCT_ID, product.getId().toString());
+                context.startActivity(intent);
+            });
+            btnAction2.setOnClickListener(v -> {
+                if (actionListener != null) {
+                    actionListener.onDeleteProduct(product);
                 }
+            });
+        }
 
-                Log.d(TAG, "Loading product image from: " + imageUrl);
+        public void bind(ProductRow row, boolean isOwnerView) {
+            // Set product details
+            tvProductName.setText(row.name);
+            tvDescription.setText(row.description);
+            bindStock(row);
 
+            // Load product image
+            if (row.imageUrl != null) {
                 Glide.with(context)
-                        .load(imageUrl)
-                        .placeholder(R.drawable.placeholder_product)
-                        .error(R.drawable.placeholder_product)
+                        .load(row.thumbnail)
+                        .apply(ImageUtils.LIST_THUMBNAIL_OPTIONS)
                         .into(imgProduct);
             } else {
                 imgProduct.setImageResource(R.drawable.placeholder_product);
@@ -122,45 +147,34 @@ public class RecyclerViewProductAdapter extends RecyclerView.Adapter<RecyclerVie
             if (isOwnerView) {
                 // Farmer's own products - Edit and Delete buttons
                 btnAction1.setText("Edit");
-                btnAction1.setContentDescription("Edit " + product.getName());
+                btnAction1.setContentDescription(row.editDescription);
                 btnAction2.setVisibility(View.VISIBLE);
                 btnAction2.setImageResource(R.drawable.ic_delete);
-                btnAction2.setContentDescription("Delete " + product.getName());
-
-                btnAction1.setOnClickListener(v -> {
-                    if (actionListener != null) {
-                        actionListener.onEditProduct(product);
-                    }
-                });
-
-                btnAction2.setOnClickListener(v -> {
-                    if (actionListener != null) {
-                        actionListener.onDeleteProduct(product);
-                    }
-                });
+                btnAction2.setContentDescription(row.deleteDescription);
             } else {
                 // Marketplace products - Place Order button
                 btnAction1.setText("Place Order");
-                btnAction1.setContentDescription("Order " + product.getName());
+                btnAction1.setContentDescription(row.orderDescription);
                 btnAction2.setVisibility(View.GONE);
-
-                btnAction1.setOnClickListener(v -> {
-                    if (actionListener != null) {
-                        actionListener.onOrderProduct(product);
-                    }
-                    // Keep the old intent as fallback
-                    Intent intent = new Intent(context, OrderFormActivity.class);
-                    intent.putExtra(Constants.EXTRA_PRODUCT_ID, product.getId().toString());
-                    context.startActivity(intent);
-                });
             }
         }
+
+        /**
+         * Rebind price and stock only, leaving the image alone.
+         */
+        void bindStock(ProductRow row) {
+            product = row.product;
+            tvPrice.setText(row.priceText);
+            tvQuantity.setText(row.availableText);
+        }
     }
 
-    // Update the product list
+    // Update the product list; it is formatted and diffed off the main thread
     public void updateProducts(List<Product> newProducts) {
-        products.clear();
-        products.addAll(newProducts);
-        notifyDataSetChanged();
+        List<Product> copy = new ArrayList<>(newProducts);
+        executors.listRows().execute(() -> {
+            List<ProductRow> rows = ProductRow.from(copy);
+            executors.mainThread().execute(() -> differ.submitList(rows));
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,414 @@
+package com.example.farmmobileapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.ProductChanges;
+import com.example.farmmobileapp.utils.Constants;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * On-disk product catalog.
+ *
+ * Products are stored once in {@code products}; each screen's list is a
+ * named listing ("all", "mine:42", ...) of product ids in display order, with
+ * the time it was last fetched from the server. Writes only touch product
+ * rows whose content actually changed.
+ *
+ * A listing also keeps its delta sync position: the token of the last applied
+ * {@link ProductChanges}, or none right after a full fetch, in which case the
+ * fetch time is the starting point.
+ *
+ * All methods do disk I/O and must be called off the main thread, see
+ * {@link ProductRepository}.
+ */
+public class CatalogStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = Constants.CACHE_PRODUCTS + ".db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_PRODUCTS = "products";
+    private static final String TABLE_LISTING_ITEMS = "listing_items";
+    private static final String TABLE_LISTINGS = "listings";
+
+    private static CatalogStore instance;
+
+    /**
+     * Where delta sync of a listing continues from.
+     */
+    public static class SyncState {
+        public final String token;
+        public final long fetchedAt;
+        public final boolean complete;
+
+        SyncState(String token, long fetchedAt, boolean complete) {
+            this.token = token;
+            this.fetchedAt = fetchedAt;
+            this.complete = complete;
+        }
+    }
+
+    public static synchronized CatalogStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new CatalogStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private CatalogStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_PRODUCTS + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "name TEXT, "
+                + "description TEXT, "
+                + "price TEXT, "
+                + "available_quantity INTEGER, "
+                + "image_url TEXT, "
+                + "owner_id INTEGER, "
+                + "owner_name TEXT, "
+                + "stored_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_products_owner ON " + TABLE_PRODUCTS + " (owner_id)");
+        db.execSQL("CREATE INDEX idx_products_name ON " + TABLE_PRODUCTS + " (name COLLATE NOCASE)");
+
+        db.execSQL("CREATE TABLE " + TABLE_LISTING_ITEMS + " ("
+                + "listing TEXT NOT NULL, "
+                + "position INTEGER NOT NULL, "
+                + "product_id INTEGER NOT NULL, "
+                + "PRIMARY KEY (listing, position))");
+        db.execSQL("CREATE INDEX idx_listing_items_product ON " + TABLE_LISTING_ITEMS + " (product_id)");
+
+        db.execSQL("CREATE TABLE " + TABLE_LISTINGS + " ("
+                + "listing TEXT PRIMARY KEY, "
+                + "fetched_at INTEGER NOT NULL, "
+                + "complete INTEGER NOT NULL DEFAULT 0, "
+                + "sync_token TEXT)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Pure cache, rebuild from the server
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_PRODUCTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_LISTING_ITEMS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_LISTINGS);
+        onCreate(db);
+    }
+
+    /**
+     * @param listing Listing name
+     * @param limit Maximum number of products, 0 for all
+     * @return Products of the listing in display order, empty if never stored
+     */
+    public List<Product> getListing(String listing, int limit) {
+        String sql = "SELECT p.id, p.name, p.description, p.price, p.available_quantity, p.image_url, "
+                + "p.owner_id, p.owner_name FROM " + TABLE_LISTING_ITEMS + " li "
+                + "JOIN " + TABLE_PRODUCTS + " p ON p.id = li.product_id "
+                + "WHERE li.listing = ? ORDER BY li.position"
+                + (limit > 0 ? " LIMIT " + limit : "");
+        List<Product> products = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, new String[]{listing})) {
+            while (cursor.moveToNext()) {
+                products.add(readProduct(cursor));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * @return Whether the listing was never fetched or is older than {@code maxAgeMillis}
+     */
+    public boolean isStale(String listing, long maxAgeMillis) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_LISTINGS, new String[]{"fetched_at"},
+                "listing = ?", new String[]{listing}, null, null, null)) {
+            if (!cursor.moveToFirst()) {
+                return true;
+            }
+            return System.currentTimeMillis() - cursor.getLong(0) > maxAgeMillis;
+        }
+    }
+
+    /**
+     * Replace a whole listing with what the server returned.
+     *
+     * @return What changed compared to the stored listing
+     */
+    public ChangeSet replaceListing(String listing, List<Product> products) {
+        return replaceRange(listing, 0, products, true);
+    }
+
+    /**
+     * Store one page of a listing.
+     *
+     * @param listing Listing name
+     * @param offset Position of the first product of the page
+     * @param products Products of the page in order
+     * @param last Whether this is the last page; positions after it are dropped
+     * @return What changed in this range compared to the stored one
+     */
+    public ChangeSet replaceRange(String listing, int offset, List<Product> products, boolean last) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            List<Product> stored = getRange(db, listing, offset, last ? 0 : products.size());
+            ChangeSet changes = ChangeSet.between(stored, products);
+
+            long now = System.currentTimeMillis();
+            for (Product product : changes.getAdded()) {
+                upsertIfChanged(db, product, now);
+            }
+            for (Product product : changes.getUpdated()) {
+                upsert(db, product, now);
+            }
+
+            if (!changes.isEmpty() || stored.size() != products.size()) {
+                String end = last ? "" : " AND position < " + (offset + products.size());
+                db.execSQL("DELETE FROM " + TABLE_LISTING_ITEMS + " WHERE listing = ? AND position >= " + offset + end,
+                        new Object[]{listing});
+                SQLiteStatement insert = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_LISTING_ITEMS
+                        + " (listing, position, product_id) VALUES (?, ?, ?)");
+                int position = offset;
+                for (Product product : products) {
+                    if (product.getId() == null) {
+                        continue;
+                    }
+                    insert.bindString(1, listing);
+                    insert.bindLong(2, position++);
+                    insert.bindLong(3, product.getId());
+                    insert.executeInsert();
+                }
+            }
+
+            if (offset == 0) {
+                // A full fetch restarts delta sync from its own time
+                ContentValues values = new ContentValues();
+                values.put("listing", listing);
+                values.put("fetched_at", now);
+                values.put("complete", last ? 1 : 0);
+                values.putNull("sync_token");
+                db.insertWithOnConflict(TABLE_LISTINGS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            } else if (last) {
+                db.execSQL("UPDATE " + TABLE_LISTINGS + " SET complete = 1 WHERE listing = ?", new Object[]{listing});
+            }
+            if (last) {
+                // A full-table scan, so once per completed listing rather than per page;
+                // products a page replaced linger until then but are never listed
+                deleteOrphans(db);
+            }
+            db.setTransactionSuccessful();
+            return changes;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @return Delta sync position of the listing, null if it was never fetched
+     */
+    public SyncState getSyncState(String listing) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_LISTINGS,
+                new String[]{"sync_token", "fetched_at", "complete"},
+                "listing = ?", new String[]{listing}, null, null, null)) {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new SyncState(cursor.getString(0), cursor.getLong(1), cursor.getInt(2) != 0);
+        }
+    }
+
+    /**
+     * Apply one response of delta sync to a listing.
+     *
+     * Tombstones are removed everywhere. Upserts update the stored product
+     * wherever it appears; a product the listing does not hold yet is appended
+     * only if the listing is complete (a paged listing picks it up when that
+     * page is loaded) and, for owner listings, belongs to {@code ownerId}.
+     *
+     * @param listing Listing name
+     * @param changes Response to apply
+     * @param ownerId Owner of the listing, or null if it holds everyone's products
+     */
+    public void applyChanges(String listing, ProductChanges changes, Long ownerId) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Long id : changes.getDeleted()) {
+                String[] args = {String.valueOf(id)};
+                db.delete(TABLE_LISTING_ITEMS, "product_id = ?", args);
+                db.delete(TABLE_PRODUCTS, "id = ?", args);
+            }
+
+            SyncState state = getSyncState(listing);
+            boolean complete = state != null && state.complete;
+            long now = System.currentTimeMillis();
+            int next = nextPosition(db, listing);
+            for (Product product : changes.getUpserts()) {
+                if (product.getId() == null) {
+                    continue;
+                }
+                String[] args = {listing, String.valueOf(product.getId())};
+                boolean listed = DatabaseUtils.queryNumEntries(db, TABLE_LISTING_ITEMS,
+                        "listing = ? AND product_id = ?", args) > 0;
+                boolean belongs = ownerId == null || ownerId.equals(product.getOwnerId());
+                if (listed && !belongs) {
+                    db.delete(TABLE_LISTING_ITEMS, "listing = ? AND product_id = ?", args);
+                } else if (!listed && belongs && complete) {
+                    ContentValues item = new ContentValues();
+                    item.put("listing", listing);
+                    item.put("position", next++);
+                    item.put("product_id", product.getId());
+                    db.insert(TABLE_LISTING_ITEMS, null, item);
+                }
+                // Orphans are dropped at the end of the sync, so storing unlisted products is harmless
+                upsertIfChanged(db, product, now);
+            }
+
+            ContentValues values = new ContentValues();
+            values.put("fetched_at", now);
+            values.put("sync_token", changes.getToken());
+            db.update(TABLE_LISTINGS, values, "listing = ?", new String[]{listing});
+            if (!changes.hasMore()) {
+                // Once at the end of a sync, not per response
+                deleteOrphans(db);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Store a single product, e.g. after it was created or edited.
+     */
+    public void putProduct(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        upsert(getWritableDatabase(), product, System.currentTimeMillis());
+    }
+
+    /**
+     * Remove a product from the store and from every listing.
+     */
+    public void deleteProduct(long productId) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            String[] args = {String.valueOf(productId)};
+            db.delete(TABLE_LISTING_ITEMS, "product_id = ?", args);
+            db.delete(TABLE_PRODUCTS, "id = ?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Drop everything, e.g. on logout.
+     */
+    public void clear() {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_LISTING_ITEMS, null, null);
+            db.delete(TABLE_LISTINGS, null, null);
+            db.delete(TABLE_PRODUCTS, null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<Product> getRange(SQLiteDatabase db, String listing, int offset, int count) {
+        String sql = "SELECT p.id, p.name, p.description, p.price, p.available_quantity, p.image_url, "
+                + "p.owner_id, p.owner_name FROM " + TABLE_LISTING_ITEMS + " li "
+                + "JOIN " + TABLE_PRODUCTS + " p ON p.id = li.product_id "
+                + "WHERE li.listing = ? AND li.position >= " + offset
+                + (count > 0 ? " AND li.position < " + (offset + count) : "")
+                + " ORDER BY li.position";
+        try (Cursor cursor = db.rawQuery(sql, new String[]{listing})) {
+            if (cursor.getCount() == 0) {
+                return Collections.emptyList();
+            }
+            List<Product> products = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                products.add(readProduct(cursor));
+            }
+            return products;
+        }
+    }
+
+    /**
+     * A product new to this listing may already be stored through another one.
+     */
+    private void upsertIfChanged(SQLiteDatabase db, Product product, long now) {
+        try (Cursor cursor = db.rawQuery("SELECT id, name, description, price, available_quantity, image_url, "
+                + "owner_id, owner_name FROM " + TABLE_PRODUCTS + " WHERE id = ?",
+                new String[]{String.valueOf(product.getId())})) {
+            if (cursor.moveToFirst() && ChangeSet.sameContent(readProduct(cursor), product)) {
+                return;
+            }
+        }
+        upsert(db, product, now);
+    }
+
+    private void upsert(SQLiteDatabase db, Product product, long now) {
+        ContentValues values = new ContentValues();
+        values.put("id", product.getId());
+        values.put("name", product.getName());
+        values.put("description", product.getDescription());
+        values.put("price", product.getPrice() != null ? product.getPrice().toPlainString() : null);
+        values.put("available_quantity", product.getAvailableQuantity());
+        values.put("image_url", product.getImageUrl());
+        values.put("owner_id", product.getOwnerId());
+        values.put("owner_name", ownerNameOf(product));
+        values.put("stored_at", now);
+        db.insertWithOnConflict(TABLE_PRODUCTS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static int nextPosition(SQLiteDatabase db, String listing) {
+        return (int) DatabaseUtils.longForQuery(db, "SELECT COALESCE(MAX(position) + 1, 0) FROM "
+                + TABLE_LISTING_ITEMS + " WHERE listing = ?", new String[]{listing});
+    }
+
+    private static void deleteOrphans(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_PRODUCTS + " WHERE id NOT IN (SELECT product_id FROM " + TABLE_LISTING_ITEMS + ")");
+    }
+
+    private static String ownerNameOf(Product product) {
+        if (product.getOwnerName() != null && !product.getOwnerName().isEmpty()) {
+            return product.getOwnerName();
+        }
+        return product.getOwner() != null ? product.getOwner().getName() : null;
+    }
+
+    private static Product readProduct(Cursor cursor) {
+        Product product = new Product();
+        product.setId(cursor.getLong(0));
+        product.setName(cursor.getString(1));
+        product.setDescription(cursor.getString(2));
+        String price = cursor.getString(3);
+        product.setPrice(price != null ? new BigDecimal(price) : null);
+        product.setAvailableQuantity(cursor.isNull(4) ? null : cursor.getInt(4));
+        product.setImageUrl(cursor.getString(5));
+        product.setOwnerId(cursor.isNull(6) ? null : cursor.getLong(6));
+        product.setOwnerName(cursor.getString(7));
+        return product;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.models.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Difference between two versions of a product listing, by product id.
+ */
+public class ChangeSet {
+    private final List<Product> added;
+    private final List<Product> updated;
+    private final List<Long> removed;
+    private final boolean reordered;
+
+    ChangeSet(List<Product> added, List<Product> updated, List<Long> removed, boolean reordered) {
+        this.added = Collections.unmodifiableList(added);
+        this.updated = Collections.unmodifiableList(updated);
+        this.removed = Collections.unmodifiableList(removed);
+        this.reordered = reordered;
+    }
+
+    /**
+     * @param before Listing currently shown or stored
+     * @param after Listing returned by the server
+     */
+    public static ChangeSet between(List<Product> before, List<Product> after) {
+        Map<Long, Product> old = new HashMap<>();
+        List<Long> oldOrder = new ArrayList<>(before.size());
+        for (Product product : before) {
+            if (product.getId() != null) {
+                old.put(product.getId(), product);
+                oldOrder.add(product.getId());
+            }
+        }
+
+        List<Product> added = new ArrayList<>();
+        List<Product> updated = new ArrayList<>();
+        List<Long> newOrder = new ArrayList<>(after.size());
+        for (Product product : after) {
+            if (product.getId() == null) {
+                continue;
+            }
+            newOrder.add(product.getId());
+            Product previous = old.remove(product.getId());
+            if (previous == null) {
+                added.add(product);
+            } else if (!sameContent(previous, product)) {
+                updated.add(product);
+            }
+        }
+        List<Long> removed = new ArrayList<>(old.keySet());
+
+        boolean reordered = false;
+        if (added.isEmpty() && removed.isEmpty()) {
+            reordered = !oldOrder.equals(newOrder);
+        }
+        return new ChangeSet(added, updated, removed, reordered);
+    }
+
+    /**
+     * @return Whether the two products would be stored and displayed identically
+     */
+    public static boolean sameContent(Product a, Product b) {
+        return Objects.equals(a.getId(), b.getId())
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && samePrice(a.getPrice(), b.getPrice())
+                && Objects.equals(a.getAvailableQuantity(), b.getAvailableQuantity())
+                && Objects.equals(a.getImageUrl(), b.getImageUrl())
+                && Objects.equals(a.getOwnerId(), b.getOwnerId())
+                && Objects.equals(a.getFarmerName(), b.getFarmerName());
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.compareTo(b) == 0;
+    }
+
+    public List<Product> getAdded() {
+        return added;
+    }
+
+    public List<Product> getUpdated() {
+        return updated;
+    }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    public boolean isReordered() {
+        return reordered;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty() && !reordered;
+    }
+
+    @Override
+    public String toString() {
+        return "+" + added.size() + " ~" + updated.size() + " -" + removed.size() + (reordered ? " reordered" : "");
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.farmmobileapp.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.UploadStatus;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.ImageRequestBody;
+import com.example.farmmobileapp.network.RetrofitClient;
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.NetworkUtils;
+import com.example.farmmobileapp.utils.PreparedImage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Uploads product images in {@link Constants#UPLOAD_CHUNK_SIZE} parts that
+ * survive dropped connections and restarts.
+ *
+ * The prepared image is written to app storage and its progress to
+ * {@link UploadStore}; after every acknowledged part the offset is saved, so
+ * a resumed upload asks the server where it stands and continues from there.
+ * Pending uploads resume whenever the device gets a network. An upload can
+ * be limited to unmetered networks, in which case it waits for Wi-Fi. One
+ * the server refuses outright (a 4xx other than 401, 408 or 429) is dropped
+ * instead, see {@link #isRejected}.
+ *
+ * Backends without the chunked endpoint get the image as one multipart POST.
+ */
+public class ChunkedImageUploader {
+    private static final String TAG = "ChunkedImageUploader";
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/offset+octet-stream");
+
+    private static ChunkedImageUploader instance;
+
+    private final Context context;
+    private final UploadStore store;
+    private final AppExecutors executors;
+    private final File directory;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final Set<Long> replaced = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Listener> listeners = new ConcurrentHashMap<>();
+    private volatile ChunkedUploadEndpoint endpoint;
+
+    /**
+     * Callbacks on the main thread.
+     */
+    public interface Listener {
+        default void onProgress(long sentBytes, long totalBytes) {
+        }
+
+        /**
+         * @param product Product with its new image URL, null if the server did not return it
+         *                or already had this image
+         */
+        void onComplete(Product product);
+
+        /**
+         * Waiting for an unmetered network.
+         */
+        default void onDeferred() {
+        }
+
+        /**
+         * The upload stopped. It is kept and resumes once the network is back,
+         * unless {@link #isRejected} says the server refused it and it was dropped.
+         */
+        void onError(Throwable t);
+    }
+
+    private ChunkedImageUploader(Context context) {
+        this.context = context;
+        store = UploadStore.getInstance(context);
+        executors = AppExecutors.getInstance();
+        directory = new File(context.getFilesDir(), "uploads");
+    }
+
+    public static synchronized ChunkedImageUploader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ChunkedImageUploader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @return Whether an upload failed for good: the server refused it, so it
+     * was dropped rather than kept for a retry
+     */
+    public static boolean isRejected(Throwable t) {
+        if (!(t instanceof HttpException)) {
+            return false;
+        }
+        int code = ((HttpException) t).code();
+        return code >= 400 && code < 500 && code != 401 && code != 408 && code != 429;
+    }
+
+    /**
+     * Resume pending uploads now and every time the device gets a network. Call once at startup.
+     */
+    public void start() {
+        NetworkUtils.registerNetworkCallback(context, this::resumePending);
+        resumePending();
+    }
+
+    /**
+     * Replace the server side, e.g. with a local server in tests.
+     */
+    public void setEndpoint(ChunkedUploadEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Upload a product image, replacing any unfinished upload for that product.
+     *
+     * @param unmeteredOnly Wait for Wi-Fi or another unmetered network
+     * @param listener Receives progress until it is removed
+     */
+    public void upload(long productId, PreparedImage image, boolean unmeteredOnly, Listener listener) {
+        listeners.put(productId, listener);
+        executors.diskIO().execute(() -> {
+            File file = new File(directory, "product_" + productId + "_" + System.currentTimeMillis() + ".jpg");
+            try {
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    throw new IOException("Cannot create " + directory);
+                }
+                try (OutputStream out = new FileOutputStream(file)) {
+                    out.write(image.getBytes());
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Could not store image for product " + productId, e);
+                deliver(productId, l -> l.onError(e));
+                return;
+            }
+            UploadStore.Entry previous = store.get(productId);
+            store.put(productId, file.getPath(), image.getSize(), image.getMimeType(), unmeteredOnly,
+                    image.getSha256());
+            if (previous != null) {
+                deleteFile(previous.filePath);
+            }
+            executors.networkIO().execute(() -> run(productId));
+        });
+    }
+
+    /**
+     * Follow and continue the pending upload of a product instead of starting a new one.
+     */
+    public void resume(long productId, Listener listener) {
+        listeners.put(productId, listener);
+        executors.networkIO().execute(() -> run(productId));
+    }
+
+    /**
+     * Stop callbacks, e.g. when the screen is closed. The upload itself goes on.
+     */
+    public void removeListener(long productId, Listener listener) {
+        listeners.remove(productId, listener);
+    }
+
+    /**
+     * Continue every unfinished upload the current network allows.
+     */
+    public void resumePending() {
+        executors.diskIO().execute(() -> {
+            for (UploadStore.Entry entry : store.getAll()) {
+                executors.networkIO().execute(() -> run(entry.productId));
+            }
+        });
+    }
+
+    private ChunkedUploadEndpoint getEndpoint() {
+        if (endpoint == null) {
+            endpoint = ChunkedUploadEndpoint.fromApi(RetrofitClient.getClient().create(ApiService.class));
+        }
+        return endpoint;
+    }
+
+    private void run(long productId) {
+        if (!running.add(productId)) {
+            // Let the running upload notice and start over with the new image
+            replaced.add(productId);
+            return;
+        }
+        try {
+            do {
+                replaced.remove(productId);
+                runUpload(productId);
+            } while (replaced.contains(productId));
+        } finally {
+            running.remove(productId);
+        }
+    }
+
+    private void runUpload(long productId) {
+        UploadStore.Entry entry = store.get(productId);
+        if (entry == null) {
+            return;
+        }
+        if (entry.unmeteredOnly && NetworkUtils.isMeteredNetwork(context)) {
+            Log.d(TAG, "Product " + productId + " image waits for an unmetered network");
+            deliver(productId, Listener::onDeferred);
+            return;
+        }
+
+        try {
+            byte[] bytes = Files.readAllBytes(new File(entry.filePath).toPath());
+            ChunkedUploadEndpoint endpoint = getEndpoint();
+            String uploadId = entry.uploadId;
+            UploadStatus status = null;
+
+            if (uploadId != null) {
+                try {
+                    status = endpoint.status(productId, uploadId);
+                } catch (HttpException e) {
+                    if (e.code() != 404 && e.code() != 410) {
+                        throw e;
+                    }
+                    Log.d(TAG, "Upload " + uploadId + " expired on the server, starting over");
+                    uploadId = null;
+                }
+            }
+            if (uploadId == null) {
+                try {
+                    status = endpoint.start(productId, bytes.length, entry.mimeType);
+                } catch (HttpException e) {
+                    if (e.code() == 404 || e.code() == 405 || e.code() == 501) {
+                        uploadWhole(entry, bytes);
+                        return;
+                    }
+                    throw e;
+                }
+                uploadId = status.getUploadId();
+            }
+
+            long offset = status.getOffset();
+            store.updateProgress(productId, entry.filePath, uploadId, offset);
+            deliverProgress(productId, offset, bytes.length);
+            int conflicts = 0;
+            while (!status.isComplete()) {
+                if (replaced.contains(productId)) {
+                    return;
+                }
+                if (entry.unmeteredOnly && NetworkUtils.isMeteredNetwork(context)) {
+                    deliver(productId, Listener::onDeferred);
+                    return;
+                }
+                if (offset >= bytes.length) {
+                    throw new IOException("Server has all " + bytes.length + " bytes but did not complete");
+                }
+
+                int length = (int) Math.min(Constants.UPLOAD_CHUNK_SIZE, bytes.length - offset);
+                long chunkStart = offset;
+                ImageRequestBody chunk = new ImageRequestBody(bytes, (int) offset, length, OCTET_STREAM) {
+                    @Override
+                    protected void onSegmentWritten(long bytesWritten) {
+                        deliverProgress(productId, chunkStart + bytesWritten, bytes.length);
+                    }
+                };
+                try {
+                    status = endpoint.putChunk(productId, uploadId, offset, chunk);
+                    conflicts = 0;
+                } catch (HttpException e) {
+                    if (e.code() != 409) {
+                        throw e;
+                    }
+                    // Our offset is off, e.g. a part arrived but its response did not
+                    if (++conflicts > Constants.UPLOAD_MAX_CONFLICTS) {
+                        throw new IOException("Offset of upload " + uploadId + " rejected " + conflicts
+                                + " times in a row");
+                    }
+                    status = endpoint.status(productId, uploadId);
+                }
+                offset = status.getOffset();
+                store.updateProgress(productId, entry.filePath, uploadId, offset);
+            }
+            finish(entry, status.getProduct());
+        } catch (HttpException e) {
+            if (isRejected(e)) {
+                reject(entry, e);
+            } else {
+                Log.w(TAG, "Upload for product " + productId + " paused", e);
+                deliver(productId, l -> l.onError(e));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Upload for product " + productId + " paused", e);
+            deliver(productId, l -> l.onError(e));
+        }
+    }
+
+    /**
+     * Drop an upload the server will never accept, so it is not retried on every network change.
+     */
+    private void reject(UploadStore.Entry entry, HttpException e) {
+        Log.e(TAG, "Image for product " + entry.productId + " rejected with " + e.code() + ", dropping it");
+        store.delete(entry.productId, entry.filePath);
+        deleteFile(entry.filePath);
+        deliver(entry.productId, l -> {
+            listeners.remove(entry.productId, l);
+            l.onError(e);
+        });
+    }
+
+    private void uploadWhole(UploadStore.Entry entry, byte[] bytes) throws IOException {
+        long productId = entry.productId;
+        Log.d(TAG, "No chunked upload endpoint, sending product " + productId + " image in one request");
+        ImageRequestBody body = new ImageRequestBody(bytes, MediaType.parse(entry.mimeType)) {
+            @Override
+            protected void onSegmentWritten(long bytesWritten) {
+                deliverProgress(productId, bytesWritten, bytes.length);
+            }
+        };
+        MultipartBody.Part part = MultipartBody.Part.createFormData("file", "product_" + productId + ".jpg", body);
+        Response<Product> response = RetrofitClient.getClient().create(ApiService.class)
+                .uploadProductImage(productId, part).execute();
+        if (!response.isSuccessful()) {
+            throw new HttpException(response);
+        }
+        finish(entry, response.body());
+    }
+
+    private void finish(UploadStore.Entry entry, Product product) {
+        Log.d(TAG, "Image for product " + entry.productId + " uploaded");
+        store.delete(entry.productId, entry.filePath);
+        deleteFile(entry.filePath);
+        if (entry.sha256 != null) {
+            store.putUploaded(UploadStore.productTarget(entry.productId), entry.sha256,
+                    product != null ? product.getImageUrl() : null);
+        }
+        if (product != null) {
+            ProductRepository.getInstance(context).saveProduct(product);
+        }
+        deliver(entry.productId, l -> {
+            listeners.remove(entry.productId, l);
+            l.onComplete(product);
+        });
+    }
+
+    private void deliverProgress(long productId, long sent, long total) {
+        deliver(productId, l -> l.onProgress(sent, total));
+    }
+
+    private void deliver(long productId, Consumer<Listener> callback) {
+        executors.mainThread().execute(() -> {
+            Listener listener = listeners.get(productId);
+            if (listener != null) {
+                callback.accept(listener);
+            }
+        });
+    }
+
+    private static void deleteFile(String path) {
+        File file = new File(path);
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete " + path);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.models.UploadStatus;
+import com.example.farmmobileapp.network.ApiService;
+
+import java.io.IOException;
+
+import okhttp3.RequestBody;
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Server side of {@link ChunkedImageUploader}. All methods block and are
+ * called off the main thread; non-2xx responses throw {@link HttpException}.
+ */
+public interface ChunkedUploadEndpoint {
+
+    /**
+     * Open an upload for a product image.
+     *
+     * @return Status with the new upload id and offset 0
+     */
+    UploadStatus start(long productId, long size, String mimeType) throws IOException;
+
+    /**
+     * @return How much of the upload the server has, to resume from
+     */
+    UploadStatus status(long productId, String uploadId) throws IOException;
+
+    /**
+     * Append a chunk. The server answers 409 if {@code offset} is not where it stands.
+     *
+     * @return Status after the chunk; complete once the last byte arrived
+     */
+    UploadStatus putChunk(long productId, String uploadId, long offset, RequestBody chunk) throws IOException;
+
+    /**
+     * @return Endpoint backed by {@code products/{id}/image/uploads}
+     */
+    static ChunkedUploadEndpoint fromApi(ApiService apiService) {
+        return new ChunkedUploadEndpoint() {
+            @Override
+            public UploadStatus start(long productId, long size, String mimeType) throws IOException {
+                return execute(apiService.startImageUpload(productId, size, mimeType));
+            }
+
+            @Override
+            public UploadStatus status(long productId, String uploadId) throws IOException {
+                return execute(apiService.getImageUpload(productId, uploadId));
+            }
+
+            @Override
+            public UploadStatus putChunk(long productId, String uploadId, long offset, RequestBody chunk)
+                    throws IOException {
+                return execute(apiService.putImageChunk(productId, uploadId, offset, chunk));
+            }
+
+            private UploadStatus execute(Call<UploadStatus> call) throws IOException {
+                Response<UploadStatus> response = call.execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    throw new HttpException(response);
+                }
+                return response.body();
+            }
+        };
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.farmmobileapp.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.example.farmmobileapp.models.ApiResponse;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.ImageRequestBody;
+import com.example.farmmobileapp.network.RetrofitClient;
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.ImagePreparer;
+import com.example.farmmobileapp.utils.PreparedImage;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Single entry point for product and profile pictures picked on a screen.
+ *
+ * The picked image is prepared off the main thread and hashed. If the
+ * hash matches the last image this device sent to the same product or
+ * profile, and the server still shows that upload, nothing is sent.
+ * Otherwise product images go through {@link ChunkedImageUploader} and
+ * profile images as one multipart request.
+ */
+public class ImageUploadService {
+    private static final String TAG = "ImageUploadService";
+
+    private static ImageUploadService instance;
+
+    private final ContentResolver resolver;
+    private final UploadStore store;
+    private final ChunkedImageUploader chunkedUploader;
+    private final AppExecutors executors;
+
+    /**
+     * Upload callbacks, plus one for a picked image that cannot be read.
+     */
+    public interface Listener extends ChunkedImageUploader.Listener {
+        void onPrepareFailed(IOException e);
+    }
+
+    private ImageUploadService(Context context) {
+        resolver = context.getContentResolver();
+        store = UploadStore.getInstance(context);
+        chunkedUploader = ChunkedImageUploader.getInstance(context);
+        executors = AppExecutors.getInstance();
+    }
+
+    public static synchronized ImageUploadService getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageUploadService(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Upload a picked image for a product unless the server already has it.
+     *
+     * @param currentImageUrl Image URL the product has now, null for a new product
+     * @param listener Called on the main thread; onComplete(null) when nothing had to be sent
+     */
+    public void uploadProductImage(long productId, String currentImageUrl, Uri uri, boolean unmeteredOnly,
+                                   Listener listener) {
+        executors.imageIO().execute(() -> {
+            PreparedImage image;
+            try {
+                image = ImagePreparer.prepare(resolver, uri, ImagePreparer.Target.PRODUCT);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not prepare " + uri, e);
+                executors.mainThread().execute(() -> listener.onPrepareFailed(e));
+                return;
+            }
+
+            UploadStore.Entry pending = store.get(productId);
+            if (pending != null && image.getSha256().equals(pending.sha256)) {
+                Log.d(TAG, "Same image already uploading for product " + productId);
+                chunkedUploader.resume(productId, listener);
+                return;
+            }
+            if (pending == null && isProductImageOnServer(productId, image, currentImageUrl)) {
+                Log.d(TAG, "Product " + productId + " already has this image, skipping upload");
+                executors.mainThread().execute(() -> listener.onComplete(null));
+                return;
+            }
+            chunkedUploader.upload(productId, image, unmeteredOnly, listener);
+        });
+    }
+
+    /**
+     * Stop callbacks for a product image, see {@link ChunkedImageUploader#removeListener}.
+     */
+    public void removeListener(long productId, ChunkedImageUploader.Listener listener) {
+        chunkedUploader.removeListener(productId, listener);
+    }
+
+    /**
+     * Upload a picked profile picture for the logged in user unless the server already has it.
+     *
+     * @param userId Logged in user, null if unknown, which always uploads
+     * @param listener Called on the main thread; onComplete receives null
+     */
+    public void uploadProfileImage(Long userId, Uri uri, Listener listener) {
+        executors.imageIO().execute(() -> {
+            PreparedImage image;
+            try {
+                image = ImagePreparer.prepare(resolver, uri, ImagePreparer.Target.PROFILE);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not prepare " + uri, e);
+                executors.mainThread().execute(() -> listener.onPrepareFailed(e));
+                return;
+            }
+
+            String target = userId != null ? UploadStore.profileTarget(userId) : null;
+            if (target != null && isSameAsLast(target, image)) {
+                Log.d(TAG, "Profile " + userId + " already has this image, skipping upload");
+                executors.mainThread().execute(() -> listener.onComplete(null));
+                return;
+            }
+            executors.networkIO().execute(() -> sendProfileImage(target, image, listener));
+        });
+    }
+
+    private void sendProfileImage(String target, PreparedImage image, Listener listener) {
+        long total = image.getSize();
+        ImageRequestBody body = new ImageRequestBody(image.getBytes(), MediaType.parse(image.getMimeType())) {
+            @Override
+            protected void onSegmentWritten(long bytesWritten) {
+                executors.mainThread().execute(() -> listener.onProgress(bytesWritten, total));
+            }
+        };
+        MultipartBody.Part part = MultipartBody.Part.createFormData("file", "profile.jpg", body);
+        try {
+            Response<ApiResponse<Void>> response = RetrofitClient.getClient().create(ApiService.class)
+                    .uploadProfileImage(part).execute();
+            if (!response.isSuccessful()) {
+                throw new HttpException(response);
+            }
+            if (target != null) {
+                store.putUploaded(target, image.getSha256(), null);
+            }
+            executors.mainThread().execute(() -> listener.onComplete(null));
+        } catch (IOException | HttpException e) {
+            Log.w(TAG, "Profile image upload failed", e);
+            executors.mainThread().execute(() -> listener.onError(e));
+        }
+    }
+
+    /**
+     * The server holds this image if this device uploaded the same bytes last
+     * and the product still shows the URL that upload produced.
+     */
+    private boolean isProductImageOnServer(long productId, PreparedImage image, String currentImageUrl) {
+        UploadStore.Uploaded last = store.getUploaded(UploadStore.productTarget(productId));
+        if (currentImageUrl == null || last == null || !last.sha256.equals(image.getSha256())) {
+            return false;
+        }
+        return last.imageUrl == null || Objects.equals(last.imageUrl, currentImageUrl);
+    }
+
+    private boolean isSameAsLast(String target, PreparedImage image) {
+        UploadStore.Uploaded last = store.getUploaded(target);
+        return last != null && last.sha256.equals(image.getSha256());
+    }
+}
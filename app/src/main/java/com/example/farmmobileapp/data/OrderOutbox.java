@@ -0,0 +1,290 @@
+package com.example.farmmobileapp.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.farmmobileapp.models.ApiResponse;
+import com.example.farmmobileapp.models.Order;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.RetrofitClient;
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.NetworkUtils;
+import com.example.farmmobileapp.utils.Session;
+import com.example.farmmobileapp.utils.SessionManager;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import retrofit2.Response;
+
+/**
+ * Orders are placed locally and sent to the backend in the background.
+ *
+ * {@link #enqueue} only writes the order to {@link OutboxStore}, so placing an
+ * order takes a disk write no matter how bad the connection is. The queue is
+ * flushed whenever the device gets a network, after login and after every new
+ * order, in batches of {@link Constants#OUTBOX_BATCH_SIZE}.
+ *
+ * Orders of a user are sent one at a time in the order they were placed; a
+ * transient failure (I/O error, 401, 408, 429, 5xx) stops the flush so no
+ * later order overtakes it. Every entry keeps the idempotency key it was
+ * created with, sent as {@code Idempotency-Key}, so a request that reached the
+ * server but whose response was lost is not turned into a second order.
+ */
+public class OrderOutbox {
+    private static final String TAG = "OrderOutbox";
+
+    private static OrderOutbox instance;
+
+    private final Context context;
+    private final OutboxStore store;
+    private final AppExecutors executors;
+    private final Gson gson;
+    private final Handler retryHandler = new Handler(Looper.getMainLooper());
+    private final Runnable retryFlush = this::flush;
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean flushRequested;
+    private int failedFlushes;
+
+    public interface Listener {
+        /**
+         * A queued order was accepted by the server.
+         *
+         * @param order Order as returned by the server
+         */
+        default void onOrderSent(Order order) {
+        }
+
+        /**
+         * A queued order was refused and dropped from the queue.
+         *
+         * @param order Order as it was placed
+         * @param message Reason given by the server
+         */
+        default void onOrderRejected(Order order, String message) {
+        }
+    }
+
+    private OrderOutbox(Context context) {
+        this.context = context;
+        store = OutboxStore.getInstance(context);
+        executors = AppExecutors.getInstance();
+        gson = RetrofitClient.getGson();
+    }
+
+    public static synchronized OrderOutbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new OrderOutbox(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Flush now and every time the device gets a network. Call once at startup.
+     */
+    public void start() {
+        NetworkUtils.registerNetworkCallback(context, this::flush);
+        // Orders queued in an earlier session can go out once the user logs back in
+        SessionManager.getInstance(context).addListener(session -> {
+            if (session.isLoggedIn()) {
+                flush();
+            }
+        });
+        flush();
+    }
+
+    /**
+     * @return New key for an order; keep it for the lifetime of the order form
+     * so a repeated submit is stored only once
+     */
+    public static String newIdempotencyKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Store an order for sending and start a flush.
+     *
+     * @param idempotencyKey Key from {@link #newIdempotencyKey()}
+     * @param order Order to place
+     * @param onStored Called on the main thread with whether the order is now queued
+     */
+    public void enqueue(String idempotencyKey, Order order, Consumer<Boolean> onStored) {
+        Long userId = SessionManager.getInstance(context).getSession().getUserId();
+        if (userId == null) {
+            onStored.accept(false);
+            return;
+        }
+        String body = gson.toJson(order);
+        executors.diskIO().execute(() -> {
+            boolean stored;
+            try {
+                if (!store.insert(idempotencyKey, userId, body)) {
+                    Log.d(TAG, "Order " + idempotencyKey + " is already queued");
+                }
+                stored = true;
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Could not queue order", e);
+                stored = false;
+            }
+            boolean result = stored;
+            executors.mainThread().execute(() -> onStored.accept(result));
+            if (result) {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Send queued orders of the current user. Safe to call from any thread;
+     * only one flush runs at a time.
+     */
+    public void flush() {
+        flushRequested = true;
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        retryHandler.removeCallbacks(retryFlush);
+        executors.networkIO().execute(this::drain);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void drain() {
+        boolean delivered = true;
+        try {
+            while (flushRequested && delivered) {
+                flushRequested = false;
+                delivered = sendQueued();
+            }
+        } finally {
+            flushing.set(false);
+        }
+
+        if (!delivered) {
+            scheduleRetry();
+        } else {
+            failedFlushes = 0;
+            if (flushRequested) {
+                // Requested while we were finishing up
+                flush();
+            }
+        }
+    }
+
+    /**
+     * @return false if a transient failure stopped the flush
+     */
+    private boolean sendQueued() {
+        Session session = SessionManager.getInstance(context).getSession();
+        Long userId = session.getUserId();
+        if (userId == null || !session.hasToken()) {
+            return true;
+        }
+        if (!NetworkUtils.isNetworkAvailable(context)) {
+            Log.d(TAG, "Offline, " + store.count(userId) + " orders waiting");
+            return true;
+        }
+
+        ApiService apiService = RetrofitClient.getClient().create(ApiService.class);
+        while (true) {
+            List<OutboxStore.Entry> batch = store.nextBatch(userId, Constants.OUTBOX_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                return true;
+            }
+            Log.d(TAG, "Sending " + batch.size() + " queued orders");
+            for (OutboxStore.Entry entry : batch) {
+                if (!send(apiService, entry)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the entry must be retried before anything after it is sent
+     */
+    private boolean send(ApiService apiService, OutboxStore.Entry entry) {
+        Order order = gson.fromJson(entry.body, Order.class);
+        Response<ApiResponse<Order>> response;
+        try {
+            response = apiService.createOrder(entry.idempotencyKey, order).execute();
+        } catch (IOException e) {
+            Log.w(TAG, "Sending order " + entry.idempotencyKey + " failed (attempt " + (entry.attempts + 1) + ")", e);
+            store.recordAttempt(entry.seq, e.getMessage());
+            return false;
+        }
+
+        int code = response.code();
+        if (response.isSuccessful()) {
+            ApiResponse<Order> body = response.body();
+            if (body != null && !body.isSuccess()) {
+                reject(entry, order, body.getMessage() != null ? body.getMessage() : "Failed to place order");
+                return true;
+            }
+            store.delete(entry.seq);
+            Order placed = body != null && body.getData() != null ? body.getData() : order;
+            Log.d(TAG, "Order " + entry.idempotencyKey + " sent");
+            for (Listener listener : listeners) {
+                executors.mainThread().execute(() -> listener.onOrderSent(placed));
+            }
+            return true;
+        }
+
+        if (code == 401 || code == 408 || code == 429 || code >= 500) {
+            Log.w(TAG, "Sending order " + entry.idempotencyKey + " got " + code + ", keeping it queued");
+            store.recordAttempt(entry.seq, "HTTP " + code);
+            return false;
+        }
+        reject(entry, order, errorMessage(response));
+        return true;
+    }
+
+    private void reject(OutboxStore.Entry entry, Order order, String message) {
+        Log.e(TAG, "Order " + entry.idempotencyKey + " rejected: " + message);
+        store.delete(entry.seq);
+        for (Listener listener : listeners) {
+            executors.mainThread().execute(() -> listener.onOrderRejected(order, message));
+        }
+    }
+
+    private void scheduleRetry() {
+        if (!NetworkUtils.isNetworkAvailable(context)) {
+            // The network callback flushes once we are back online
+            return;
+        }
+        long delay = Math.min(Constants.OUTBOX_RETRY_MAX_DELAY_MILLIS,
+                Constants.OUTBOX_RETRY_BASE_DELAY_MILLIS << Math.min(failedFlushes++, 16));
+        Log.d(TAG, "Retrying queued orders in " + delay + " ms");
+        retryHandler.postDelayed(retryFlush, delay);
+    }
+
+    private static String errorMessage(Response<?> response) {
+        try {
+            if (response.errorBody() != null) {
+                ApiResponse<?> error = RetrofitClient.getGson().fromJson(response.errorBody().charStream(),
+                        ApiResponse.class);
+                if (error != null && error.getMessage() != null) {
+                    return error.getMessage();
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Unreadable error body", e);
+        }
+        return "Failed to place order (" + response.code() + ")";
+    }
+}
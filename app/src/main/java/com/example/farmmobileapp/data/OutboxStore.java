@@ -0,0 +1,135 @@
+package com.example.farmmobileapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk queue of orders waiting to be sent.
+ *
+ * Rows are kept in insertion order ({@code seq}) per user and are only
+ * removed once the server accepted or definitively rejected them. The
+ * idempotency key is unique, so storing the same order twice is a no-op.
+ *
+ * All methods do disk I/O and must be called off the main thread, see
+ * {@link OrderOutbox}.
+ */
+public class OutboxStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "order_outbox.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_OUTBOX = "outbox";
+
+    private static OutboxStore instance;
+
+    /**
+     * One queued order.
+     */
+    public static class Entry {
+        public final long seq;
+        public final String idempotencyKey;
+        public final long userId;
+        public final String body;
+        public final int attempts;
+
+        Entry(long seq, String idempotencyKey, long userId, String body, int attempts) {
+            this.seq = seq;
+            this.idempotencyKey = idempotencyKey;
+            this.userId = userId;
+            this.body = body;
+            this.attempts = attempts;
+        }
+    }
+
+    public static synchronized OutboxStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new OutboxStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private OutboxStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " ("
+                + "seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "idempotency_key TEXT NOT NULL UNIQUE, "
+                + "user_id INTEGER NOT NULL, "
+                + "body TEXT NOT NULL, "
+                + "attempts INTEGER NOT NULL DEFAULT 0, "
+                + "last_error TEXT, "
+                + "created_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_outbox_user ON " + TABLE_OUTBOX + " (user_id, seq)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Queued orders are not a cache, migrate instead of dropping once the schema changes
+    }
+
+    /**
+     * @return Whether the order was stored; false if the key was already queued
+     */
+    public boolean insert(String idempotencyKey, long userId, String body) {
+        ContentValues values = new ContentValues();
+        values.put("idempotency_key", idempotencyKey);
+        values.put("user_id", userId);
+        values.put("body", body);
+        values.put("created_at", System.currentTimeMillis());
+        return getWritableDatabase().insertWithOnConflict(TABLE_OUTBOX, null, values,
+                SQLiteDatabase.CONFLICT_IGNORE) != -1;
+    }
+
+    /**
+     * @param userId Owner of the orders
+     * @param limit Maximum number of entries
+     * @return Oldest queued entries of the user, in the order they were placed
+     */
+    public List<Entry> nextBatch(long userId, int limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_OUTBOX,
+                new String[]{"seq", "idempotency_key", "user_id", "body", "attempts"},
+                "user_id = ?", new String[]{String.valueOf(userId)},
+                null, null, "seq", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(new Entry(cursor.getLong(0), cursor.getString(1), cursor.getLong(2),
+                        cursor.getString(3), cursor.getInt(4)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return Number of orders the user still has queued
+     */
+    public long count(long userId) {
+        return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_OUTBOX,
+                "user_id = ?", new String[]{String.valueOf(userId)});
+    }
+
+    /**
+     * Remember a failed attempt; the entry stays at its place in the queue.
+     */
+    public void recordAttempt(long seq, String error) {
+        getWritableDatabase().execSQL("UPDATE " + TABLE_OUTBOX
+                + " SET attempts = attempts + 1, last_error = ? WHERE seq = ?", new Object[]{error, seq});
+    }
+
+    public void delete(long seq) {
+        getWritableDatabase().delete(TABLE_OUTBOX, "seq = ?", new String[]{String.valueOf(seq)});
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.models.ProductChanges;
+import com.example.farmmobileapp.network.ApiService;
+
+import java.io.IOException;
+
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Where {@link ProductRepository#sync} gets product changes from.
+ */
+public interface ProductDeltaSource {
+
+    /**
+     * Blocking; called off the main thread.
+     *
+     * @param since Token from the previous response, or null to start from {@code sinceTime}
+     * @param sinceTime Epoch millis to start from when there is no token yet
+     * @param limit Maximum number of changes in the response
+     * @return Changes after the given point, oldest first
+     * @throws HttpException For non-2xx responses
+     */
+    ProductChanges fetchChanges(String since, Long sinceTime, int limit) throws IOException;
+
+    /**
+     * @return Source backed by {@code GET products/changes}
+     */
+    static ProductDeltaSource fromApi(ApiService apiService) {
+        return (since, sinceTime, limit) -> {
+            Response<ProductChanges> response = apiService.getProductChanges(since, sinceTime, limit).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new HttpException(response);
+            }
+            return response.body();
+        };
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.farmmobileapp.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.ProductChanges;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.RetrofitClient;
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.Constants;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Product listings served from {@link CatalogStore} first and revalidated
+ * against the backend in the background (stale-while-revalidate).
+ *
+ * A screen gets the stored rows straight from disk, then, if the listing is
+ * older than {@link Constants#REFRESH_INTERVAL_PRODUCTS} or a refresh was
+ * forced, the server's version along with the {@link ChangeSet} against what
+ * was shown. Unchanged rows are neither rewritten on disk nor rebound.
+ *
+ * {@link #sync} refreshes a stored listing by delta instead: only products
+ * changed or deleted since the last sync are downloaded and applied.
+ */
+public class ProductRepository {
+    private static final String TAG = "ProductRepository";
+
+    public static final String LISTING_ALL = "all";
+    public static final String LISTING_GRID = "grid";
+
+    private static ProductRepository instance;
+
+    private final CatalogStore store;
+    private final AppExecutors executors;
+    private volatile ProductDeltaSource deltaSource;
+
+    public interface Listener {
+        /**
+         * Stored rows, delivered first. Not called when nothing is stored yet.
+         */
+        void onCached(List<Product> products);
+
+        /**
+         * Server version of the listing, after it was written to disk.
+         *
+         * @param products Full listing
+         * @param changes Difference against the stored listing
+         */
+        void onRevalidated(List<Product> products, ChangeSet changes);
+
+        /**
+         * @param t {@link HttpException} for non-2xx responses, otherwise the network error
+         */
+        void onError(Throwable t);
+    }
+
+    public interface SyncListener {
+        /**
+         * The listing after the changes were applied.
+         *
+         * @param products Full stored listing
+         * @param changes Difference against the listing before the sync
+         */
+        void onSynced(List<Product> products, ChangeSet changes);
+
+        /**
+         * Delta sync is not possible: nothing stored yet, the server dropped
+         * history that far back, too many changes, or no delta endpoint.
+         * Load the listing the regular way.
+         */
+        void onFullReloadNeeded();
+
+        /**
+         * @param t {@link HttpException} for non-2xx responses, otherwise the network error
+         */
+        void onError(Throwable t);
+    }
+
+    /**
+     * Cancels delivery of a pending load.
+     */
+    public static class Request {
+        private volatile boolean canceled;
+        private volatile Call<?> call;
+
+        public void cancel() {
+            canceled = true;
+            Call<?> current = call;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        public boolean isCanceled() {
+            return canceled;
+        }
+    }
+
+    private ProductRepository(Context context) {
+        store = CatalogStore.getInstance(context);
+        executors = AppExecutors.getInstance();
+    }
+
+    public static synchronized ProductRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new ProductRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @param userId Id of the farmer
+     * @return Listing name for that farmer's own products
+     */
+    public static String mineListing(Long userId) {
+        return "mine:" + userId;
+    }
+
+    /**
+     * @return Owner id of a {@link #mineListing} name, null for shared listings
+     */
+    static Long ownerOf(String listing) {
+        if (!listing.startsWith("mine:")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(listing.substring("mine:".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace where changes come from, e.g. with a local server in tests.
+     */
+    public void setDeltaSource(ProductDeltaSource deltaSource) {
+        this.deltaSource = deltaSource;
+    }
+
+    private ProductDeltaSource getDeltaSource() {
+        if (deltaSource == null) {
+            deltaSource = ProductDeltaSource.fromApi(RetrofitClient.getClient().create(ApiService.class));
+        }
+        return deltaSource;
+    }
+
+    /**
+     * Bring a stored listing up to date by downloading only what changed since
+     * its last full fetch or sync.
+     *
+     * @param listing Listing name
+     * @param listener Receives results on the main thread
+     * @return Handle to stop delivery
+     */
+    public Request sync(String listing, SyncListener listener) {
+        Request request = new Request();
+        executors.diskIO().execute(() -> {
+            CatalogStore.SyncState state = store.getSyncState(listing);
+            if (state == null) {
+                deliver(request, listener::onFullReloadNeeded);
+                return;
+            }
+            List<Product> before = store.getListing(listing, 0);
+            String token = state.token;
+            Long sinceTime = token == null ? state.fetchedAt - Constants.DELTA_SYNC_CLOCK_SKEW_MILLIS : null;
+            executors.networkIO().execute(() -> pullChanges(listing, token, sinceTime, before, 1, request, listener));
+        });
+        return request;
+    }
+
+    private void pullChanges(String listing, String token, Long sinceTime, List<Product> before, int round,
+                             Request request, SyncListener listener) {
+        if (request.isCanceled()) {
+            return;
+        }
+        ProductChanges changes;
+        try {
+            changes = getDeltaSource().fetchChanges(token, sinceTime, Constants.DELTA_SYNC_PAGE_SIZE);
+        } catch (HttpException e) {
+            if (e.code() == 404 || e.code() == 501) {
+                Log.d(TAG, "No delta endpoint, reloading " + listing);
+                deliver(request, listener::onFullReloadNeeded);
+            } else {
+                deliver(request, () -> listener.onError(e));
+            }
+            return;
+        } catch (IOException e) {
+            Log.w(TAG, "Syncing " + listing + " failed", e);
+            deliver(request, () -> listener.onError(e));
+            return;
+        }
+
+        if (changes.isReset() || (changes.hasMore() && round >= Constants.DELTA_SYNC_MAX_ROUNDS)) {
+            Log.d(TAG, "Delta for " + listing + " not usable, reloading");
+            deliver(request, listener::onFullReloadNeeded);
+            return;
+        }
+
+        executors.diskIO().execute(() -> {
+            store.applyChanges(listing, changes, ownerOf(listing));
+            if (changes.hasMore()) {
+                executors.networkIO().execute(() -> pullChanges(listing, changes.getToken(), null, before,
+                        round + 1, request, listener));
+                return;
+            }
+            List<Product> after = store.getListing(listing, 0);
+            ChangeSet diff = ChangeSet.between(before, after);
+            Log.d(TAG, "Synced " + listing + " in " + round + " requests: " + diff);
+            deliver(request, () -> listener.onSynced(after, diff));
+        });
+    }
+
+    private void deliver(Request request, Runnable result) {
+        executors.mainThread().execute(() -> {
+            if (!request.isCanceled()) {
+                result.run();
+            }
+        });
+    }
+
+    /**
+     * Load a listing: stored rows first, then the server's version if stale.
+     *
+     * @param listing Listing name
+     * @param fetch Creates the call returning the full listing, given the Cache-Control
+     *              request header to send (null for none)
+     * @param forceRefresh Revalidate even if the stored listing is fresh
+     * @param listener Receives results on the main thread
+     * @return Handle to stop delivery
+     */
+    public Request loadListing(String listing, Function<String, Call<List<Product>>> fetch, boolean forceRefresh,
+                               Listener listener) {
+        Request request = new Request();
+        Executor main = executors.mainThread();
+
+        executors.diskIO().execute(() -> {
+            List<Product> cached = store.getListing(listing, 0);
+            boolean stale = forceRefresh || store.isStale(listing, Constants.REFRESH_INTERVAL_PRODUCTS);
+            if (!cached.isEmpty()) {
+                main.execute(() -> {
+                    if (!request.isCanceled()) {
+                        listener.onCached(cached);
+                    }
+                });
+            }
+            if (!stale) {
+                Log.d(TAG, listing + " is fresh, " + cached.size() + " products from disk");
+                return;
+            }
+            // An explicit refresh must reach the server, not the HTTP cache
+            String cacheControl = forceRefresh ? "no-cache" : null;
+            executors.networkIO().execute(() -> revalidate(listing, () -> fetch.apply(cacheControl), request,
+                    listener));
+        });
+        return request;
+    }
+
+    private void revalidate(String listing, Supplier<Call<List<Product>>> fetch, Request request, Listener listener) {
+        Executor main = executors.mainThread();
+        if (request.isCanceled()) {
+            return;
+        }
+        Call<List<Product>> call = fetch.get();
+        request.call = call;
+        Response<List<Product>> response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            if (!request.isCanceled()) {
+                Log.w(TAG, "Revalidating " + listing + " failed", e);
+                main.execute(() -> {
+                    if (!request.isCanceled()) {
+                        listener.onError(e);
+                    }
+                });
+            }
+            return;
+        }
+
+        if (!response.isSuccessful() || response.body() == null) {
+            HttpException error = new HttpException(response);
+            main.execute(() -> {
+                if (!request.isCanceled()) {
+                    listener.onError(error);
+                }
+            });
+            return;
+        }
+
+        List<Product> products = response.body();
+        executors.diskIO().execute(() -> {
+            ChangeSet changes = store.replaceListing(listing, products);
+            Log.d(TAG, "Revalidated " + listing + ": " + changes);
+            main.execute(() -> {
+                if (!request.isCanceled()) {
+                    listener.onRevalidated(products, changes);
+                }
+            });
+        });
+    }
+
+    /**
+     * Read the first stored products of a listing, e.g. the first page of a paged grid.
+     */
+    public void getCached(String listing, int limit, Consumer<List<Product>> callback) {
+        executors.diskIO().execute(() -> {
+            List<Product> products = store.getListing(listing, limit);
+            executors.mainThread().execute(() -> callback.accept(products));
+        });
+    }
+
+    /**
+     * Store one page fetched by a paginator.
+     */
+    public void savePage(String listing, int page, int pageSize, List<Product> products, boolean last) {
+        executors.diskIO().execute(() -> store.replaceRange(listing, page * pageSize, products, last));
+    }
+
+    /**
+     * Keep the store in sync after a product was created or edited.
+     */
+    public void saveProduct(Product product) {
+        executors.diskIO().execute(() -> store.putProduct(product));
+    }
+
+    /**
+     * Keep the store in sync after a product was deleted.
+     */
+    public void removeProduct(long productId) {
+        executors.diskIO().execute(() -> store.deleteProduct(productId));
+    }
+
+    /**
+     * Forget all stored products, e.g. on logout.
+     */
+    public void clear() {
+        executors.diskIO().execute(store::clear);
+    }
+}
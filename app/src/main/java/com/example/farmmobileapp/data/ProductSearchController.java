@@ -0,0 +1,182 @@
+package com.example.farmmobileapp.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.CallRegistry;
+import com.example.farmmobileapp.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Catalog search over both the products already loaded and the whole
+ * catalog on the server.
+ *
+ * Every query is answered from {@link ProductSearchIndex} first. Once typing
+ * has paused for {@link Constants#SEARCH_SERVER_DEBOUNCE_MILLIS} it is also
+ * sent to {@code GET products/search}, so products on pages not loaded yet
+ * are found without downloading them. The call for a superseded query is
+ * cancelled as soon as the query changes.
+ *
+ * Results are the local matches in listing order, followed by server
+ * matches that are not loaded locally, in server order. They are delivered
+ * when the local matches arrive and again when the server answers; a failed
+ * server call leaves the local matches in place.
+ *
+ * Must be used from the main thread.
+ */
+public class ProductSearchController {
+    private static final String TAG = "ProductSearchController";
+    private static final String CALL_KEY = "search";
+
+    private final ProductSearchIndex index;
+    private final ApiService apiService;
+    private final CallRegistry callRegistry;
+    private final ProductSearchIndex.Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable sendQuery = this::sendQuery;
+
+    private String query = "";
+    private List<Product> localResults;
+    private List<Product> serverResults;
+    private Call<List<Product>> inFlight;
+
+    /**
+     * @param index Index over the products already loaded
+     * @param callRegistry Registry of the screen, so the call dies with it
+     * @param listener Gets the merged results of the current query
+     */
+    public ProductSearchController(ProductSearchIndex index, ApiService apiService,
+                                   CallRegistry callRegistry, ProductSearchIndex.Listener listener) {
+        this.index = index;
+        this.apiService = apiService;
+        this.callRegistry = callRegistry;
+        this.listener = listener;
+    }
+
+    /**
+     * Search for a query as typed. An empty query stops searching.
+     */
+    public void setQuery(String newQuery) {
+        String trimmed = newQuery != null ? newQuery.trim() : "";
+        if (trimmed.equals(query)) {
+            return;
+        }
+        cancel();
+        query = trimmed;
+        if (query.isEmpty()) {
+            return;
+        }
+        index.search(query, localListener);
+        if (query.length() >= Constants.SEARCH_SERVER_MIN_CHARS) {
+            handler.postDelayed(sendQuery, Constants.SEARCH_SERVER_DEBOUNCE_MILLIS);
+        }
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public boolean isSearching() {
+        return !query.isEmpty();
+    }
+
+    /**
+     * The loaded products changed; match the current query against them
+     * again without waiting, keeping the server results already in.
+     */
+    public void onListingChanged() {
+        if (isSearching()) {
+            index.searchNow(query, localListener);
+        }
+    }
+
+    /**
+     * Stop the pending local query and the server call, if any.
+     */
+    public void cancel() {
+        handler.removeCallbacks(sendQuery);
+        index.cancel();
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+        localResults = null;
+        serverResults = null;
+    }
+
+    private final ProductSearchIndex.Listener localListener = (matched, results) -> {
+        if (!matched.equals(query)) {
+            return;
+        }
+        localResults = results;
+        publish();
+    };
+
+    private void sendQuery() {
+        String sent = query;
+        inFlight = callRegistry.enqueue(CALL_KEY, apiService.searchProducts(sent, null, null),
+                new Callback<List<Product>>() {
+            @Override
+            public void onResponse(@NonNull Call<List<Product>> call, @NonNull Response<List<Product>> response) {
+                if (inFlight == call) {
+                    inFlight = null;
+                }
+                if (!sent.equals(query)) {
+                    return;
+                }
+                if (response.isSuccessful() && response.body() != null) {
+                    serverResults = response.body();
+                    Log.d(TAG, "Server found " + serverResults.size() + " products for '" + sent + "'");
+                    publish();
+                } else {
+                    Log.d(TAG, "Server search failed with " + response.code() + ", showing local matches");
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<List<Product>> call, @NonNull Throwable t) {
+                if (inFlight == call) {
+                    inFlight = null;
+                }
+                Log.d(TAG, "Server search failed, showing local matches", t);
+            }
+        });
+    }
+
+    private void publish() {
+        List<Product> local = localResults != null ? localResults : Collections.emptyList();
+        if (serverResults == null) {
+            if (localResults != null) {
+                listener.onResults(query, local);
+            }
+            return;
+        }
+
+        List<Product> merged = new ArrayList<>(local.size() + serverResults.size());
+        Set<Long> ids = new HashSet<>();
+        for (Product product : local) {
+            merged.add(product);
+            ids.add(product.getId());
+        }
+        for (Product product : serverResults) {
+            if (product.getId() != null && ids.add(product.getId())) {
+                merged.add(product);
+            }
+        }
+        listener.onResults(query, merged);
+    }
+}
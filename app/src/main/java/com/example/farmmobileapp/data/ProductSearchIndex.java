@@ -0,0 +1,338 @@
+package com.example.farmmobileapp.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Substring search over a product listing, answered from an inverted index
+ * instead of scanning every product.
+ *
+ * The lowercased name, description and farmer name of each product are cut
+ * into trigrams, and each trigram maps to the sorted list of products that
+ * contain it. A query is answered by intersecting the lists of its own
+ * trigrams, shortest first, and checking the few candidates left with
+ * {@code contains}, so it matches exactly what a full scan would. Queries
+ * shorter than a trigram check every product.
+ *
+ * All index work runs on {@link AppExecutors#search()}: {@link #update} and
+ * {@link #add} only reindex products that are new or changed, and
+ * {@link #search} is debounced by {@link Constants#SEARCH_DEBOUNCE_MILLIS}.
+ * Results come back on the main thread, in listing order; results of a query
+ * that was superseded or cancelled are dropped.
+ */
+public class ProductSearchIndex {
+    private static final String TAG = "ProductSearchIndex";
+    private static final int GRAM = 3;
+
+    private final AppExecutors executors = AppExecutors.getInstance();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+    private Runnable pendingSearch;
+
+    // Only touched on the search thread
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<Long, Doc> byId = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private int deadDocs;
+    private int nextRank;
+
+    public interface Listener {
+        /**
+         * @param query Query as typed
+         * @param results Matching products in listing order
+         */
+        void onResults(String query, List<Product> results);
+    }
+
+    /**
+     * Make the index match a listing: new and changed products are indexed,
+     * products no longer listed are dropped, the rest are left alone.
+     *
+     * @param products Listing in display order; copied before returning
+     */
+    public void update(List<Product> products) {
+        List<Product> copy = new ArrayList<>(products);
+        executors.search().execute(() -> {
+            Set<Long> listed = new LinkedHashSet<>();
+            int rank = 0;
+            for (Product product : copy) {
+                if (product.getId() == null || !listed.add(product.getId())) {
+                    continue;
+                }
+                Doc doc = byId.get(product.getId());
+                if (doc == null || !ChangeSet.sameContent(doc.product, product)) {
+                    if (doc != null) {
+                        remove(doc);
+                    }
+                    doc = insert(product);
+                }
+                doc.rank = rank++;
+            }
+            nextRank = rank;
+            for (Doc doc : new ArrayList<>(byId.values())) {
+                if (!listed.contains(doc.product.getId())) {
+                    remove(doc);
+                }
+            }
+            compactIfSparse();
+        });
+    }
+
+    /**
+     * Index products appended to the end of the listing.
+     */
+    public void add(List<Product> products) {
+        List<Product> copy = new ArrayList<>(products);
+        executors.search().execute(() -> {
+            for (Product product : copy) {
+                if (product.getId() == null) {
+                    continue;
+                }
+                Doc previous = byId.get(product.getId());
+                if (previous != null) {
+                    remove(previous);
+                }
+                insert(product).rank = nextRank++;
+            }
+        });
+    }
+
+    /**
+     * Look up a query once typing pauses. Supersedes any earlier query.
+     */
+    public void search(String query, Listener listener) {
+        schedule(query, listener, Constants.SEARCH_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * Look up a query without waiting, for when the listing changed under it.
+     */
+    public void searchNow(String query, Listener listener) {
+        schedule(query, listener, 0);
+    }
+
+    /**
+     * Drop the pending query and any results still on their way.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        if (pendingSearch != null) {
+            handler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+    }
+
+    private void schedule(String query, Listener listener, long delayMillis) {
+        cancel();
+        int ticket = generation.get();
+        pendingSearch = () -> {
+            pendingSearch = null;
+            executors.search().execute(() -> {
+                if (generation.get() != ticket) {
+                    return;
+                }
+                long start = SystemClock.elapsedRealtime();
+                List<Product> results = query(query);
+                long took = SystemClock.elapsedRealtime() - start;
+                if (took > Constants.SEARCH_FRAME_BUDGET_MILLIS) {
+                    Log.d(TAG, "Query '" + query + "' over " + byId.size() + " products took " + took + "ms");
+                }
+                executors.mainThread().execute(() -> {
+                    if (generation.get() == ticket) {
+                        listener.onResults(query, results);
+                    }
+                });
+            });
+        };
+        handler.postDelayed(pendingSearch, delayMillis);
+    }
+
+    private List<Product> query(String query) {
+        String needle = query.toLowerCase().trim();
+        if (needle.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Doc> matches = new ArrayList<>();
+        if (needle.length() < GRAM) {
+            for (Doc doc : docs) {
+                if (doc.live && doc.matches(needle)) {
+                    matches.add(doc);
+                }
+            }
+        } else {
+            int[] candidates = candidates(needle);
+            for (int ordinal : candidates) {
+                Doc doc = docs.get(ordinal);
+                if (doc.live && doc.matches(needle)) {
+                    matches.add(doc);
+                }
+            }
+        }
+
+        matches.sort((a, b) -> Integer.compare(a.rank, b.rank));
+        List<Product> results = new ArrayList<>(matches.size());
+        for (Doc doc : matches) {
+            results.add(doc.product);
+        }
+        return results;
+    }
+
+    /**
+     * @return Ordinals of documents containing every trigram of the needle
+     */
+    private int[] candidates(String needle) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).ordinals, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = intersect(result, size, lists.get(i));
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Keep the first {@code size} entries of {@code into} that are also in
+     * {@code list}. Both are sorted; the longer list is binary searched.
+     *
+     * @return Number of entries kept
+     */
+    private static int intersect(int[] into, int size, PostingList list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < size; i++) {
+            int found = Arrays.binarySearch(list.ordinals, from, list.size, into[i]);
+            if (found >= 0) {
+                into[kept++] = into[i];
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+            if (from >= list.size) {
+                break;
+            }
+        }
+        return kept;
+    }
+
+    private Doc insert(Product product) {
+        Doc doc = new Doc(docs.size(), product);
+        docs.add(doc);
+        byId.put(product.getId(), doc);
+        // Ordinals only grow, so every posting list stays sorted
+        for (String gram : doc.grams()) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(gram, list);
+            }
+            list.add(doc.ordinal);
+        }
+        return doc;
+    }
+
+    private void remove(Doc doc) {
+        // Posting lists keep the ordinal until the next compaction
+        doc.live = false;
+        byId.remove(doc.product.getId());
+        deadDocs++;
+    }
+
+    /**
+     * Rebuild the posting lists once most entries point at removed products.
+     */
+    private void compactIfSparse() {
+        if (deadDocs < Constants.SEARCH_COMPACT_MIN_DEAD || deadDocs < docs.size() / 2) {
+            return;
+        }
+        List<Doc> live = new ArrayList<>(byId.values());
+        live.sort((a, b) -> Integer.compare(a.ordinal, b.ordinal));
+        docs.clear();
+        byId.clear();
+        postings.clear();
+        deadDocs = 0;
+        for (Doc doc : live) {
+            insert(doc.product).rank = doc.rank;
+        }
+        Log.d(TAG, "Compacted index to " + docs.size() + " products, " + postings.size() + " trigrams");
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static final class Doc {
+        final int ordinal;
+        final Product product;
+        final String name;
+        final String description;
+        final String farmerName;
+        int rank;
+        boolean live = true;
+
+        Doc(int ordinal, Product product) {
+            this.ordinal = ordinal;
+            this.product = product;
+            name = lower(product.getName());
+            description = lower(product.getDescription());
+            farmerName = lower(product.getFarmerName());
+        }
+
+        boolean matches(String needle) {
+            return name.contains(needle) || description.contains(needle) || farmerName.contains(needle);
+        }
+
+        Set<String> grams() {
+            // Per field, so no trigram spans two fields
+            Set<String> grams = grams(name);
+            grams.addAll(grams(description));
+            grams.addAll(grams(farmerName));
+            return grams;
+        }
+
+        private static String lower(String value) {
+            return value != null ? value.toLowerCase() : "";
+        }
+    }
+
+    private static final class PostingList {
+        int[] ordinals = new int[4];
+        int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
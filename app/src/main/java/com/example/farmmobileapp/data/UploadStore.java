@@ -0,0 +1,214 @@
+package com.example.farmmobileapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of image uploads that have not finished yet, so they resume from
+ * the last acknowledged offset after a dropped connection or a restart.
+ *
+ * The prepared image itself lives in a file next to the row; only one
+ * pending upload is kept per product.
+ *
+ * Finished uploads leave their content hash in a ledger keyed by target
+ * ({@code product:<id>}, {@code profile:<id>}), so {@link ImageUploadService}
+ * can tell when the server already has an image.
+ *
+ * All methods do disk I/O and must be called off the main thread, see
+ * {@link ChunkedImageUploader}.
+ */
+public class UploadStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "uploads.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_UPLOADS = "uploads";
+    private static final String TABLE_UPLOADED = "uploaded";
+
+    private static UploadStore instance;
+
+    /**
+     * One pending upload.
+     */
+    public static class Entry {
+        public final long productId;
+        public final String uploadId;
+        public final String filePath;
+        public final long size;
+        public final long offset;
+        public final String mimeType;
+        public final boolean unmeteredOnly;
+        public final String sha256;
+
+        Entry(long productId, String uploadId, String filePath, long size, long offset, String mimeType,
+              boolean unmeteredOnly, String sha256) {
+            this.productId = productId;
+            this.uploadId = uploadId;
+            this.filePath = filePath;
+            this.size = size;
+            this.offset = offset;
+            this.mimeType = mimeType;
+            this.unmeteredOnly = unmeteredOnly;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * Last image a target received from this device.
+     */
+    public static class Uploaded {
+        public final String sha256;
+        /** Image URL the server answered with, null if it did not say */
+        public final String imageUrl;
+
+        Uploaded(String sha256, String imageUrl) {
+            this.sha256 = sha256;
+            this.imageUrl = imageUrl;
+        }
+    }
+
+    public static String productTarget(long productId) {
+        return "product:" + productId;
+    }
+
+    public static String profileTarget(long userId) {
+        return "profile:" + userId;
+    }
+
+    public static synchronized UploadStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new UploadStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private UploadStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_UPLOADS + " ("
+                + "product_id INTEGER PRIMARY KEY, "
+                + "upload_id TEXT, "
+                + "file_path TEXT NOT NULL, "
+                + "size INTEGER NOT NULL, "
+                + "upload_offset INTEGER NOT NULL DEFAULT 0, "
+                + "mime_type TEXT NOT NULL, "
+                + "unmetered_only INTEGER NOT NULL DEFAULT 0, "
+                + "sha256 TEXT, "
+                + "created_at INTEGER NOT NULL)");
+        createUploadedTable(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Pending uploads are not a cache, migrate instead of dropping
+        if (oldVersion < 2) {
+            db.execSQL("ALTER TABLE " + TABLE_UPLOADS + " ADD COLUMN sha256 TEXT");
+            createUploadedTable(db);
+        }
+    }
+
+    private static void createUploadedTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_UPLOADED + " ("
+                + "target TEXT PRIMARY KEY, "
+                + "sha256 TEXT NOT NULL, "
+                + "image_url TEXT, "
+                + "uploaded_at INTEGER NOT NULL)");
+    }
+
+    /**
+     * Start tracking an upload, replacing any unfinished one for the product.
+     */
+    public void put(long productId, String filePath, long size, String mimeType, boolean unmeteredOnly,
+                    String sha256) {
+        ContentValues values = new ContentValues();
+        values.put("product_id", productId);
+        values.putNull("upload_id");
+        values.put("file_path", filePath);
+        values.put("size", size);
+        values.put("upload_offset", 0);
+        values.put("mime_type", mimeType);
+        values.put("unmetered_only", unmeteredOnly ? 1 : 0);
+        values.put("sha256", sha256);
+        values.put("created_at", System.currentTimeMillis());
+        getWritableDatabase().insertWithOnConflict(TABLE_UPLOADS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    public Entry get(long productId) {
+        try (Cursor cursor = query("product_id = ?", new String[]{String.valueOf(productId)})) {
+            return cursor.moveToFirst() ? read(cursor) : null;
+        }
+    }
+
+    /**
+     * @return All pending uploads, oldest first
+     */
+    public List<Entry> getAll() {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor cursor = query(null, null)) {
+            while (cursor.moveToNext()) {
+                entries.add(read(cursor));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Record the server's upload id and how far it got. Ignored if the
+     * upload was replaced by a newer image in the meantime.
+     */
+    public void updateProgress(long productId, String filePath, String uploadId, long offset) {
+        ContentValues values = new ContentValues();
+        values.put("upload_id", uploadId);
+        values.put("upload_offset", offset);
+        getWritableDatabase().update(TABLE_UPLOADS, values, "product_id = ? AND file_path = ?",
+                new String[]{String.valueOf(productId), filePath});
+    }
+
+    /**
+     * Forget a finished upload, unless it was replaced by a newer image.
+     */
+    public void delete(long productId, String filePath) {
+        getWritableDatabase().delete(TABLE_UPLOADS, "product_id = ? AND file_path = ?",
+                new String[]{String.valueOf(productId), filePath});
+    }
+
+    /**
+     * @param target {@code product:<id>} or {@code profile:<id>}
+     * @return What the target last received, null if nothing is known
+     */
+    public Uploaded getUploaded(String target) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_UPLOADED, new String[]{"sha256", "image_url"},
+                "target = ?", new String[]{target}, null, null, null)) {
+            return cursor.moveToFirst() ? new Uploaded(cursor.getString(0), cursor.getString(1)) : null;
+        }
+    }
+
+    public void putUploaded(String target, String sha256, String imageUrl) {
+        ContentValues values = new ContentValues();
+        values.put("target", target);
+        values.put("sha256", sha256);
+        values.put("image_url", imageUrl);
+        values.put("uploaded_at", System.currentTimeMillis());
+        getWritableDatabase().insertWithOnConflict(TABLE_UPLOADED, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private Cursor query(String selection, String[] args) {
+        return getReadableDatabase().query(TABLE_UPLOADS,
+                new String[]{"product_id", "upload_id", "file_path", "size", "upload_offset", "mime_type",
+                        "unmetered_only", "sha256"},
+                selection, args, null, null, "created_at");
+    }
+
+    private static Entry read(Cursor cursor) {
+        return new Entry(cursor.getLong(0), cursor.getString(1), cursor.getString(2), cursor.getLong(3),
+                cursor.getLong(4), cursor.getString(5), cursor.getInt(6) != 0, cursor.getString(7));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.farmmobileapp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+// Body for orders/{id}/status: only the fields the server needs to change the status
+public class OrderStatusUpdate {
+    @SerializedName("status")
+    private String status;
+
+    @SerializedName("statusNotes")
+    private String statusNotes;
+
+    public OrderStatusUpdate(String status) {
+        this.status = status;
+    }
+
+    public OrderStatusUpdate(String status, String statusNotes) {
+        this.status = status;
+        this.statusNotes = statusNotes;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getStatusNotes() {
+        return statusNotes;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.farmmobileapp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+// One page of a server-side paginated listing (Spring Data page format)
+public class PageResponse<T> {
+    @SerializedName("content")
+    private List<T> content;
+
+    @SerializedName("number")
+    private int number;
+
+    @SerializedName("size")
+    private int size;
+
+    @SerializedName("totalElements")
+    private long totalElements;
+
+    @SerializedName("totalPages")
+    private int totalPages;
+
+    @SerializedName("last")
+    private Boolean last;
+
+    public PageResponse() {}
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    /**
+     * Falls back to comparing the page size when the server omits "last".
+     */
+    public boolean isLast() {
+        if (last != null) {
+            return last;
+        }
+        return content == null || content.size() < size;
+    }
+
+    public void setLast(Boolean last) {
+        this.last = last;
+    }
+}
@@ -3,7 +3,7 @@ package com.example.farmmobileapp.models;
 import android.os.Parcel;
 import android.os.Parcelable;
 
-import com.example.farmmobileapp.network.RetrofitClient;
+import com.example.farmmobileapp.utils.ImageUtils;
 import com.google.gson.annotations.SerializedName;
 import java.math.BigDecimal;
 
@@ -128,27 +128,15 @@ public class Product implements Parcelable {
 
     // Helper method to get full image URL
     public String getFullImageUrl() {
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            return null;
-        }
-        // Handle different URL formats
-        if (imageUrl.startsWith("http")) {
-            return imageUrl;
-        } else if (imageUrl.startsWith("/")) {
-            // Remove the leading slash and /api/ from the base URL
-            String baseUrl = RetrofitClient.getBaseUrl();
-            if (baseUrl.endsWith("/api/")) {
-                baseUrl = baseUrl.substring(0, baseUrl.length() - 5);
-            }
-            return baseUrl + imageUrl;
-        } else {
-            // Remove /api/ from the base URL
-            String baseUrl = RetrofitClient.getBaseUrl();
-            if (baseUrl.endsWith("/api/")) {
-                baseUrl = baseUrl.substring(0, baseUrl.length() - 5);
-            }
-            return baseUrl + "/images/" + imageUrl;
-        }
+        return ImageUtils.getFullImageUrl(imageUrl, false);
+    }
+
+    /**
+     * @param targetWidthPx Width of the view in pixels, 0 or less for the original
+     * @return URL of the image resized for the view, see {@link ImageUtils#getRenditionUrl}
+     */
+    public String getFullImageUrl(int targetWidthPx) {
+        return ImageUtils.getFullImageUrl(imageUrl, false, targetWidthPx);
     }
 
     @Override
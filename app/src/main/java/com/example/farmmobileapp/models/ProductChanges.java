@@ -0,0 +1,79 @@
+package com.example.farmmobileapp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Collections;
+import java.util.List;
+
+// Product changes since a sync token or timestamp (GET products/changes).
+// Upserts are flat products: ownerId/ownerName instead of the nested owner.
+public class ProductChanges {
+    // Pass as "since" on the next request
+    @SerializedName("token")
+    private String token;
+
+    @SerializedName("upserts")
+    private List<Product> upserts;
+
+    // Ids of deleted products (tombstones)
+    @SerializedName("deleted")
+    private List<Long> deleted;
+
+    // More changes are waiting, ask again with the new token
+    @SerializedName("hasMore")
+    private boolean hasMore;
+
+    // The server no longer has changes that far back, reload the full listing
+    @SerializedName("reset")
+    private boolean reset;
+
+    public ProductChanges() {}
+
+    public ProductChanges(String token, List<Product> upserts, List<Long> deleted, boolean hasMore, boolean reset) {
+        this.token = token;
+        this.upserts = upserts;
+        this.deleted = deleted;
+        this.hasMore = hasMore;
+        this.reset = reset;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public List<Product> getUpserts() {
+        return upserts != null ? upserts : Collections.emptyList();
+    }
+
+    public void setUpserts(List<Product> upserts) {
+        this.upserts = upserts;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted != null ? deleted : Collections.emptyList();
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+}
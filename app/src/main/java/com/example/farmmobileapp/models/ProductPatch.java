@@ -0,0 +1,42 @@
+package com.example.farmmobileapp.models;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Builds the body of a PATCH products/{id}: only the fields that were edited
+public class ProductPatch {
+
+    private ProductPatch() {}
+
+    /**
+     * @param original Product as loaded from the server
+     * @param edited Product with the user's edits applied
+     * @return Changed fields by JSON name, empty if nothing changed
+     */
+    public static Map<String, Object> between(Product original, Product edited) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (!Objects.equals(original.getName(), edited.getName())) {
+            changes.put("name", edited.getName());
+        }
+        if (!Objects.equals(original.getDescription(), edited.getDescription())) {
+            changes.put("description", edited.getDescription() != null ? edited.getDescription() : "");
+        }
+        if (!samePrice(original.getPrice(), edited.getPrice())) {
+            changes.put("price", edited.getPrice());
+        }
+        if (!Objects.equals(original.getAvailableQuantity(), edited.getAvailableQuantity())) {
+            changes.put("availableQuantity", edited.getAvailableQuantity());
+        }
+        return changes;
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        // 10 and 10.00 are the same price
+        return a.compareTo(b) == 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.farmmobileapp.models;
+
+import com.google.gson.annotations.SerializedName;
+
+// Server-side state of a chunked image upload (products/{id}/image/uploads)
+public class UploadStatus {
+    @SerializedName("uploadId")
+    private String uploadId;
+
+    // Bytes the server has stored so far; the next chunk starts here
+    @SerializedName("offset")
+    private long offset;
+
+    @SerializedName("complete")
+    private boolean complete;
+
+    // Product with its new image URL, once complete
+    @SerializedName("product")
+    private Product product;
+
+    public UploadStatus() {}
+
+    public UploadStatus(String uploadId, long offset, boolean complete, Product product) {
+        this.uploadId = uploadId;
+        this.offset = offset;
+        this.complete = complete;
+        this.product = product;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+}
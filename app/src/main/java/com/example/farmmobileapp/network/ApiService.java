@@ -3,13 +3,18 @@ package com.example.farmmobileapp.network;
 import com.example.farmmobileapp.models.AuthRequest;
 import com.example.farmmobileapp.models.AuthResponse;
 import com.example.farmmobileapp.models.Order;
+import com.example.farmmobileapp.models.OrderStatusUpdate;
 import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.ProductChanges;
 import com.example.farmmobileapp.models.User;
 import com.example.farmmobileapp.models.RegisterRequest;
+import com.example.farmmobileapp.models.UploadStatus;
 import com.example.farmmobileapp.models.ApiResponse;
+import com.example.farmmobileapp.models.PageResponse;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
@@ -17,8 +22,10 @@ import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
+import retrofit2.http.Headers;
 import retrofit2.http.Header;
 import retrofit2.http.Multipart;
+import retrofit2.http.PATCH;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Part;
@@ -34,7 +41,7 @@ public interface ApiService {
     Call<ApiResponse<AuthResponse>> register(@Body RegisterRequest registerRequest);
 
     @GET("auth/me")
-    Call<ApiResponse<User>> getCurrentUser(@Header("Authorization") String authHeader);
+    Call<ApiResponse<User>> getCurrentUser();
 
     // New endpoint for registration with profile image
     @Multipart
@@ -50,34 +57,54 @@ public interface ApiService {
     // User endpoints
     @Multipart
     @POST("users/profile-image")
-    Call<ApiResponse<Void>> uploadProfileImage(@Header("Authorization") String token,
-                                  @Part MultipartBody.Part file);
+    Call<ApiResponse<Void>> uploadProfileImage(@Part MultipartBody.Part file);
 
     @GET("users")
-    Call<ApiResponse<List<User>>> getAllUsers(@Header("Authorization") String token);
+    Call<ApiResponse<List<User>>> getAllUsers();
 
     @GET("users/{id}")
-    Call<ApiResponse<User>> getUserById(@Header("Authorization") String token, @Path("id") Long id);
+    Call<ApiResponse<User>> getUserById(@Path("id") Long id);
 
     @GET("users/role/{role}")
-    Call<ApiResponse<List<User>>> getUsersByRole(@Header("Authorization") String token, @Path("role") String role);
+    Call<ApiResponse<List<User>>> getUsersByRole(@Path("role") String role);
 
     @DELETE("users/{id}")
-    Call<ApiResponse<Void>> deleteUser(@Header("Authorization") String token, @Path("id") Long id);
+    Call<ApiResponse<Void>> deleteUser(@Path("id") Long id);
 
     // Product endpoints
     @GET("products")
-    Call<List<Product>> getAllProducts(@Header("Authorization") String authHeader);
+    Call<List<Product>> getAllProducts();
+
+    // Listing variants taking a Cache-Control request header, e.g. "no-cache" to skip
+    // the HTTP cache on an explicit refresh; null leaves the header out
+    @GET("products")
+    Call<List<Product>> getAllProducts(@Header("Cache-Control") String cacheControl);
 
     @GET("products/available")
-    Call<List<Product>> getAvailableProducts(@Header("Authorization") String authHeader);
+    Call<List<Product>> getAvailableProducts();
+
+    // Paged variants of the listings above
+    @GET("products/page")
+    Call<PageResponse<Product>> getProductsPage(
+        @Query("page") int page,
+        @Query("size") int size
+    );
+
+    // Delta sync: changes since a token, or since a time when there is no token yet.
+    // An unchanged token repeats the URL, so the answer must never come from the HTTP cache.
+    @Headers("Cache-Control: no-cache")
+    @GET("products/changes")
+    Call<ProductChanges> getProductChanges(
+        @Query("since") String since,
+        @Query("sinceTime") Long sinceTime,
+        @Query("limit") int limit
+    );
 
     @GET("products/{id}")
-    Call<Product> getProductById(@Header("Authorization") String authHeader, @Path("id") Long id);
+    Call<Product> getProductById(@Path("id") Long id);
 
     @GET("products/search")
     Call<List<Product>> searchProducts(
-        @Header("Authorization") String authHeader,
         @Query("name") String name,
         @Query("minPrice") BigDecimal minPrice,
         @Query("maxPrice") BigDecimal maxPrice
@@ -85,72 +112,103 @@ public interface ApiService {
 
     @GET("products/farmer/{farmerId}")
     Call<List<Product>> getProductsByFarmerId(
-        @Header("Authorization") String authHeader,
         @Path("farmerId") Long farmerId
     );
 
     @GET("products/farmer/me")
-    Call<List<Product>> getCurrentFarmerProducts(@Header("Authorization") String authHeader);
+    Call<List<Product>> getCurrentFarmerProducts();
+
+    @GET("products/farmer/me")
+    Call<List<Product>> getCurrentFarmerProducts(@Header("Cache-Control") String cacheControl);
 
     @POST("products")
     Call<Product> createProduct(
-        @Header("Authorization") String authHeader,
         @Body Product product
     );
 
     @PUT("products/{id}")
     Call<Product> updateProduct(
-        @Header("Authorization") String authHeader,
         @Path("id") Long id,
         @Body Product product
     );
 
+    // Sends only the changed fields, see ProductPatch
+    @PATCH("products/{id}")
+    Call<Product> patchProduct(
+        @Path("id") Long id,
+        @Body Map<String, Object> changes
+    );
+
     @DELETE("products/{id}")
     Call<Void> deleteProduct(
-        @Header("Authorization") String authHeader,
         @Path("id") Long id
     );
 
     @Multipart
     @POST("products/{id}/image")
     Call<Product> uploadProductImage(
-        @Header("Authorization") String authHeader,
         @Path("id") Long id,
         @Part MultipartBody.Part file
     );
 
+    // Resumable chunked upload of the same image, see ChunkedImageUploader
+    @POST("products/{id}/image/uploads")
+    Call<UploadStatus> startImageUpload(
+        @Path("id") Long id,
+        @Query("size") long size,
+        @Query("type") String mimeType
+    );
+
+    // Where a resume continues from, so always asked of the server
+    @Headers("Cache-Control: no-cache")
+    @GET("products/{id}/image/uploads/{uploadId}")
+    Call<UploadStatus> getImageUpload(
+        @Path("id") Long id,
+        @Path("uploadId") String uploadId
+    );
+
+    @PUT("products/{id}/image/uploads/{uploadId}")
+    Call<UploadStatus> putImageChunk(
+        @Path("id") Long id,
+        @Path("uploadId") String uploadId,
+        @Header("Upload-Offset") long offset,
+        @Body RequestBody chunk
+    );
+
     // Order endpoints
     @POST("orders")
-    Call<ApiResponse<Order>> createOrder(@Header("Authorization") String authHeader, @Body Order order);
+    Call<ApiResponse<Order>> createOrder(@Body Order order);
+
+    @POST("orders")
+    Call<ApiResponse<Order>> createOrder(
+        @Header("Idempotency-Key") String idempotencyKey,
+        @Body Order order
+    );
 
     @GET("orders/client")
     Call<ApiResponse<List<Order>>> getClientOrders(
-        @Header("Authorization") String authHeader,
         @Query("page") int page,
         @Query("size") int size
     );
 
     @GET("orders/farmer")
     Call<ApiResponse<List<Order>>> getFarmerOrders(
-        @Header("Authorization") String authHeader,
         @Query("page") int page,
         @Query("size") int size
     );
 
     @GET("orders/{id}")
-    Call<ApiResponse<Order>> getOrderById(@Header("Authorization") String authHeader, @Path("id") Long id);
+    Call<ApiResponse<Order>> getOrderById(@Path("id") Long id);
 
     @PUT("orders/{id}/delivery-status")
     Call<ApiResponse<Order>> updateDeliveryStatus(
-        @Header("Authorization") String authHeader,
         @Path("id") Long id,
         @Body Order order
     );
 
     @PUT("orders/{id}/status")
     Call<ApiResponse<Order>> updateOrderStatus(
-        @Header("Authorization") String authHeader,
         @Path("id") Long id,
-        @Body Order order
+        @Body OrderStatusUpdate statusUpdate
     );
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.example.farmmobileapp.network;
+
+import com.example.farmmobileapp.utils.Constants;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Adds the bearer token to every request made through the shared client.
+ *
+ * The header value is kept as a ready-built string in memory and swapped
+ * atomically by {@link com.example.farmmobileapp.utils.SessionManager} when the
+ * session changes, so requests never touch SharedPreferences.
+ */
+public class AuthInterceptor implements Interceptor {
+    private static final AtomicReference<String> authHeader = new AtomicReference<>();
+
+    private final Set<String> hosts;
+
+    /**
+     * Authenticate every request.
+     */
+    public AuthInterceptor() {
+        this(null);
+    }
+
+    /**
+     * Authenticate only requests to the given hosts, e.g. for image URLs that
+     * may point elsewhere.
+     */
+    public AuthInterceptor(Set<String> hosts) {
+        this.hosts = hosts;
+    }
+
+    /**
+     * Replace the token used for outgoing requests.
+     *
+     * @param token Raw token, or null to stop sending credentials
+     */
+    public static void setToken(String token) {
+        authHeader.set(token != null && !token.isEmpty() ? Constants.AUTH_HEADER_PREFIX + token : null);
+    }
+
+    /**
+     * @return Current "Bearer ..." header value or null when logged out
+     */
+    public static String getAuthHeader() {
+        return authHeader.get();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String header = authHeader.get();
+        if (header == null || request.header("Authorization") != null
+                || (hosts != null && !hosts.contains(request.url().host()))) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(request.newBuilder()
+                .header("Authorization", header)
+                .build());
+    }
+}
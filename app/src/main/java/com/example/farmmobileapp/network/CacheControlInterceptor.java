@@ -0,0 +1,162 @@
+package com.example.farmmobileapp.network;
+
+import android.util.Log;
+
+import com.example.farmmobileapp.utils.Constants;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that makes catalog responses cacheable by the shared
+ * OkHttp {@link Cache}.
+ *
+ * The backend marks every response as no-store, so without this rewrite the
+ * cache never keeps anything. For the catalog endpoints listed in
+ * {@link #FRESHNESS} the response is stored for the configured interval;
+ * anything else, including delta sync, search, paged listings and upload
+ * status under {@code products/}, keeps the server's headers. After the
+ * interval OkHttp sends
+ * a conditional request (If-None-Match / If-Modified-Since) using the stored
+ * validators and serves a 304 straight from disk. The 304 gets the same
+ * rewrite, since OkHttp merges its headers into the stored entry.
+ */
+public class CacheControlInterceptor implements Interceptor {
+    private static final String TAG = "CacheControlInterceptor";
+
+    // Endpoint path (relative to the API root, "*" matches one segment) -> freshness in
+    // milliseconds. The first pattern with as many segments that matches wins, so the
+    // uncacheable paths a wildcard would catch must come first with 0.
+    private static final Map<String, Long> FRESHNESS = new LinkedHashMap<>();
+
+    static {
+        // Answers that must always come from the server
+        FRESHNESS.put("products/changes", 0L);
+        FRESHNESS.put("products/search", 0L);
+        FRESHNESS.put("products/page", 0L);
+        // Catalog listings and single products
+        FRESHNESS.put("products", Constants.REFRESH_INTERVAL_PRODUCTS);
+        FRESHNESS.put("products/*", Constants.REFRESH_INTERVAL_PRODUCTS);
+        FRESHNESS.put("products/farmer/*", Constants.REFRESH_INTERVAL_PRODUCTS);
+    }
+
+    private final Cache cache;
+    private final String apiPath;
+
+    public CacheControlInterceptor(Cache cache, String baseUrl) {
+        this.cache = cache;
+        String path = HttpUrl.get(baseUrl).encodedPath();
+        this.apiPath = path.endsWith("/") ? path : path + "/";
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        String endpoint = relativePath(request);
+        if (endpoint == null) {
+            return response;
+        }
+
+        if (!"GET".equals(request.method())) {
+            // A successful write to the catalog makes every cached listing stale,
+            // not only the URL OkHttp invalidates on its own.
+            String resource = endpoint.split("/")[0];
+            if (response.isSuccessful() && isCachedResource(resource)) {
+                evict(resource);
+            }
+            return response;
+        }
+
+        long maxAgeMillis = freshnessFor(endpoint);
+        int code = response.code();
+        if (maxAgeMillis <= 0 || (code != Constants.HTTP_OK && code != Constants.HTTP_NOT_MODIFIED)) {
+            return response;
+        }
+
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .removeHeader("Expires")
+                .header("Cache-Control", "private, max-age=" + TimeUnit.MILLISECONDS.toSeconds(maxAgeMillis))
+                // Listings such as products/farmer/me depend on who is asking
+                .header("Vary", "Authorization")
+                .build();
+    }
+
+    private String relativePath(Request request) {
+        String path = request.url().encodedPath();
+        if (!path.startsWith(apiPath)) {
+            return null;
+        }
+        return path.substring(apiPath.length());
+    }
+
+    static long freshnessFor(String endpoint) {
+        String[] segments = endpoint.split("/");
+        for (Map.Entry<String, Long> entry : FRESHNESS.entrySet()) {
+            if (matches(entry.getKey().split("/"), segments)) {
+                return entry.getValue();
+            }
+        }
+        return 0;
+    }
+
+    private static boolean matches(String[] pattern, String[] segments) {
+        if (pattern.length != segments.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (!pattern[i].equals("*") && !pattern[i].equals(segments[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether some endpoint under this first path segment is cached
+     */
+    private static boolean isCachedResource(String resource) {
+        for (Map.Entry<String, Long> entry : FRESHNESS.entrySet()) {
+            if (entry.getValue() > 0 && entry.getKey().split("/")[0].equals(resource)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove cached responses whose first path segment under the API root
+     * is {@code resource}, e.g. "products" but not "products-archive".
+     */
+    private void evict(String resource) {
+        if (cache == null) {
+            return;
+        }
+        try {
+            Iterator<String> urls = cache.urls();
+            while (urls.hasNext()) {
+                HttpUrl url = HttpUrl.parse(urls.next());
+                if (url == null || !url.encodedPath().startsWith(apiPath)) {
+                    continue;
+                }
+                String endpoint = url.encodedPath().substring(apiPath.length());
+                if (endpoint.equals(resource) || endpoint.startsWith(resource + "/")) {
+                    urls.remove();
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to evict cached " + resource, e);
+        }
+    }
+}
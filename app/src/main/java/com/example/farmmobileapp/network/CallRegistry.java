@@ -0,0 +1,203 @@
+package com.example.farmmobileapp.network;
+
+import android.app.Activity;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Tracks the Retrofit calls started by one screen and cancels them when the
+ * screen is destroyed, so callbacks never run against dead views and the
+ * Activity is not kept alive by pending requests.
+ *
+ * Calls enqueued under a key replace the previous call with the same key: the
+ * older one is cancelled and its result, if it still arrives, is dropped.
+ * Use this for reloads such as swipe-to-refresh.
+ *
+ * Only reads are cancelled. Writes go through {@link #enqueueDetached}: once
+ * sent, the server may already have applied them, so cancelling would leave
+ * the outcome unknown and invite a duplicate on resubmit. For those only the
+ * callback is dropped. On a configuration change nothing is cancelled either;
+ * reads finish into the HTTP cache for the recreated screen.
+ *
+ * Must be used from the main thread.
+ */
+public class CallRegistry implements LifecycleEventObserver {
+    private static final String TAG = "CallRegistry";
+
+    private final Set<Call<?>> active = new HashSet<>();
+    private final Map<String, Call<?>> latestByKey = new HashMap<>();
+    private boolean destroyed;
+
+    private CallRegistry() {
+    }
+
+    /**
+     * @param owner Activity whose lifecycle bounds the calls
+     * @return New registry, cancelled automatically on ON_DESTROY
+     */
+    public static CallRegistry of(LifecycleOwner owner) {
+        CallRegistry registry = new CallRegistry();
+        owner.getLifecycle().addObserver(registry);
+        return registry;
+    }
+
+    /**
+     * Enqueue a call that lives until it completes or the screen is destroyed.
+     */
+    public <T> Call<T> enqueue(Call<T> call, Callback<T> callback) {
+        return enqueue(null, call, callback);
+    }
+
+    /**
+     * Enqueue a call, superseding any earlier call made with the same key.
+     *
+     * @param key Resource the call loads, e.g. "products", or null for none
+     * @param call Call to run
+     * @param callback Invoked only if the call is still current when it completes
+     * @return The call, for convenience
+     */
+    public <T> Call<T> enqueue(String key, Call<T> call, Callback<T> callback) {
+        if (destroyed) {
+            Log.d(TAG, "Screen already destroyed, not sending " + call.request().url());
+            return call;
+        }
+
+        if (key != null) {
+            Call<?> previous = latestByKey.put(key, call);
+            if (previous != null && previous != call) {
+                previous.cancel();
+                active.remove(previous);
+            }
+        }
+        active.add(call);
+
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(@NonNull Call<T> c, @NonNull Response<T> response) {
+                if (finish(key, call)) {
+                    callback.onResponse(c, response);
+                } else {
+                    Log.d(TAG, "Dropped stale response for " + call.request().url());
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> c, @NonNull Throwable t) {
+                if (finish(key, call)) {
+                    callback.onFailure(c, t);
+                }
+            }
+        });
+        return call;
+    }
+
+    /**
+     * Enqueue a write. It is never cancelled by the registry; its callback
+     * runs only if the screen is still alive when it completes.
+     */
+    public <T> Call<T> enqueueDetached(Call<T> call, Callback<T> callback) {
+        return enqueueDetached(call, callback, null);
+    }
+
+    /**
+     * Enqueue a write, with follow-up work that must happen even if the
+     * screen is gone by the time the server answers.
+     *
+     * @param call Call to run; never cancelled by the registry
+     * @param callback Invoked if the screen is still alive when the call completes
+     * @param orphaned Invoked instead of {@code callback} once the screen was destroyed, or null
+     * @return The call, for convenience
+     */
+    public <T> Call<T> enqueueDetached(Call<T> call, Callback<T> callback, Callback<T> orphaned) {
+        if (destroyed) {
+            Log.d(TAG, "Screen already destroyed, not sending " + call.request().url());
+            return call;
+        }
+
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(@NonNull Call<T> c, @NonNull Response<T> response) {
+                Callback<T> target = deliverTo(call);
+                if (target != null) {
+                    target.onResponse(c, response);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> c, @NonNull Throwable t) {
+                Callback<T> target = deliverTo(call);
+                if (target != null) {
+                    target.onFailure(c, t);
+                }
+            }
+
+            private Callback<T> deliverTo(Call<?> finished) {
+                if (!destroyed) {
+                    return callback;
+                }
+                if (orphaned == null) {
+                    Log.d(TAG, "Screen destroyed, dropped result of " + finished.request().url());
+                }
+                return orphaned;
+            }
+        });
+        return call;
+    }
+
+    /**
+     * Cancel every read still running, e.g. before logging out. Writes
+     * enqueued with {@link #enqueueDetached} keep running.
+     */
+    public void cancelAll() {
+        List<Call<?>> calls = new ArrayList<>(active);
+        active.clear();
+        latestByKey.clear();
+        for (Call<?> call : calls) {
+            call.cancel();
+        }
+        if (!calls.isEmpty()) {
+            Log.d(TAG, "Cancelled " + calls.size() + " pending calls");
+        }
+    }
+
+    /**
+     * @return Whether the result should still be delivered
+     */
+    private boolean finish(String key, Call<?> call) {
+        boolean tracked = active.remove(call);
+        if (key != null && latestByKey.get(key) == call) {
+            latestByKey.remove(key);
+        }
+        return tracked && !destroyed && !call.isCanceled();
+    }
+
+    @Override
+    public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            destroyed = true;
+            if (source instanceof Activity && ((Activity) source).isChangingConfigurations()) {
+                // Let reads finish into the HTTP cache; their callbacks are dropped by finish()
+                active.clear();
+                latestByKey.clear();
+            } else {
+                cancelAll();
+            }
+            source.getLifecycle().removeObserver(this);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.farmmobileapp.network;
+
+import android.util.Log;
+
+import com.example.farmmobileapp.utils.AppExecutors;
+import com.example.farmmobileapp.utils.Constants;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Per-host circuit breaker.
+ *
+ * After {@link Constants#CIRCUIT_FAILURE_THRESHOLD} consecutive failures the
+ * circuit opens and requests to that host fail immediately with
+ * {@link CircuitOpenException} instead of waiting out connect timeouts. While
+ * open, a lightweight probe is sent in the background; the first answer from
+ * the server closes the circuit again, each failed probe doubles the wait
+ * up to {@link Constants#CIRCUIT_MAX_OPEN_MILLIS}.
+ */
+public class CircuitBreaker {
+    private static final String TAG = "CircuitBreaker";
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public interface StateListener {
+        /**
+         * Called on the main thread when a host's circuit changes state.
+         */
+        void onStateChanged(String host, State state);
+    }
+
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private static final Set<StateListener> listeners = new CopyOnWriteArraySet<>();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private static OkHttpClient probeClient;
+
+    private final String host;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMillis = Constants.CIRCUIT_OPEN_MILLIS;
+    private HttpUrl probeUrl;
+
+    private CircuitBreaker(String host) {
+        this.host = host;
+    }
+
+    /**
+     * @param url Any URL on the host
+     * @return Breaker shared by all requests to that host and port
+     */
+    public static CircuitBreaker forUrl(HttpUrl url) {
+        return breakers.computeIfAbsent(keyOf(url), CircuitBreaker::new);
+    }
+
+    /**
+     * @return Current state for the host of {@code url}, CLOSED if it was never contacted
+     */
+    public static State getState(HttpUrl url) {
+        CircuitBreaker breaker = breakers.get(keyOf(url));
+        return breaker != null ? breaker.getState() : State.CLOSED;
+    }
+
+    public static void addStateListener(StateListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeStateListener(StateListener listener) {
+        listeners.remove(listener);
+    }
+
+    private static String keyOf(HttpUrl url) {
+        return url.host() + ":" + url.port();
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return Whether a request may go to the network right now
+     */
+    public synchronized boolean allowRequest() {
+        return state == State.CLOSED;
+    }
+
+    public void recordSuccess() {
+        boolean changed;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            openMillis = Constants.CIRCUIT_OPEN_MILLIS;
+            changed = state != State.CLOSED;
+            state = State.CLOSED;
+        }
+        if (changed) {
+            notifyListeners(State.CLOSED);
+        }
+    }
+
+    /**
+     * @param url URL of the failed request, used to probe the host later
+     */
+    public void recordFailure(HttpUrl url) {
+        boolean opened = false;
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.CLOSED && consecutiveFailures >= Constants.CIRCUIT_FAILURE_THRESHOLD) {
+                state = State.OPEN;
+                probeUrl = url.newBuilder().encodedPath("/").query(null).fragment(null).build();
+                opened = true;
+            }
+        }
+        if (opened) {
+            Log.w(TAG, host + " unreachable after " + consecutiveFailures + " failures, failing fast");
+            notifyListeners(State.OPEN);
+            scheduleProbe();
+        }
+    }
+
+    private void scheduleProbe() {
+        long delay;
+        synchronized (this) {
+            delay = openMillis;
+        }
+        scheduler.schedule(this::probe, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        HttpUrl url;
+        synchronized (this) {
+            if (state != State.OPEN) {
+                return;
+            }
+            state = State.HALF_OPEN;
+            url = probeUrl;
+        }
+        notifyListeners(State.HALF_OPEN);
+
+        boolean reachable;
+        Request request = new Request.Builder().url(url).head().build();
+        try (Response response = getProbeClient().newCall(request).execute()) {
+            // Any answer short of a gateway error means the backend is back
+            reachable = response.code() < 502 || response.code() > 504;
+        } catch (IOException e) {
+            reachable = false;
+        }
+
+        if (reachable) {
+            Log.d(TAG, host + " reachable again");
+            recordSuccess();
+            return;
+        }
+        synchronized (this) {
+            state = State.OPEN;
+            openMillis = Math.min(openMillis * 2, Constants.CIRCUIT_MAX_OPEN_MILLIS);
+        }
+        notifyListeners(State.OPEN);
+        scheduleProbe();
+    }
+
+    private static synchronized OkHttpClient getProbeClient() {
+        if (probeClient == null) {
+            probeClient = new OkHttpClient.Builder()
+                    .connectTimeout(5, TimeUnit.SECONDS)
+                    .readTimeout(5, TimeUnit.SECONDS)
+                    .retryOnConnectionFailure(false)
+                    .build();
+        }
+        return probeClient;
+    }
+
+    private void notifyListeners(State newState) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        AppExecutors.getInstance().mainThread().execute(() -> {
+            for (StateListener listener : listeners) {
+                listener.onStateChanged(host, newState);
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.farmmobileapp.network;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of attempting a request while the host's circuit is open.
+ */
+public class CircuitOpenException extends IOException {
+    public CircuitOpenException(String host) {
+        super("Server " + host + " is unreachable, try again later");
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.farmmobileapp.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+/**
+ * Call adapter that coalesces identical in-flight GET requests.
+ *
+ * When a screen enqueues a GET while an identical one (same method, URL and
+ * user credentials) is still running, the second call does not go to
+ * OkHttp; it subscribes to the first one and receives the same result.
+ * Bodies delivered to coalesced callbacks are shared and must be treated as
+ * read-only. Streaming ({@link ResponseBody}) endpoints are never coalesced.
+ */
+public class CoalescingCallAdapterFactory extends CallAdapter.Factory {
+    private static final String TAG = "CoalescingCalls";
+
+    private static final AtomicLong executedCalls = new AtomicLong();
+    private static final AtomicLong coalescedCalls = new AtomicLong();
+
+    private final Map<String, InFlight<?>> inFlight = new HashMap<>();
+
+    /**
+     * @return Number of GET calls that actually went to the network layer
+     */
+    public static long getExecutedCount() {
+        return executedCalls.get();
+    }
+
+    /**
+     * @return Number of GET calls served by joining an identical in-flight call
+     */
+    public static long getCoalescedCount() {
+        return coalescedCalls.get();
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(@NonNull Type returnType, @NonNull Annotation[] annotations,
+                                 @NonNull Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !isGet(annotations)) {
+            return null;
+        }
+        Type responseType = getParameterUpperBound(0, (ParameterizedType) returnType);
+        if (getRawType(responseType) == ResponseBody.class) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        CallAdapter<Object, Call<Object>> delegate =
+                (CallAdapter<Object, Call<Object>>) retrofit.nextCallAdapter(this, returnType, annotations);
+        return new CallAdapter<Object, Call<Object>>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Call<Object> adapt(@NonNull Call<Object> call) {
+                return new CoalescingCall<>(delegate.adapt(call));
+            }
+        };
+    }
+
+    private static boolean isGet(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String keyOf(Request request) {
+        String auth = request.header("Authorization");
+        if (auth == null) {
+            // Credentials are added later by AuthInterceptor, key on the same value
+            auth = AuthInterceptor.getAuthHeader();
+        }
+        return request.method() + ' ' + request.url() + '|' + (auth != null ? auth : "");
+    }
+
+    /**
+     * One network call and everyone waiting on it.
+     */
+    private final class InFlight<T> {
+        final String key;
+        final Call<T> call;
+        final List<CoalescingCall<T>> subscribers = new ArrayList<>();
+
+        InFlight(String key, Call<T> call) {
+            this.key = key;
+            this.call = call;
+        }
+
+        void start() {
+            call.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                    complete(response, null);
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                    complete(null, t);
+                }
+            });
+        }
+
+        void complete(Response<T> response, Throwable failure) {
+            List<CoalescingCall<T>> targets;
+            synchronized (inFlight) {
+                inFlight.remove(key, this);
+                targets = new ArrayList<>(subscribers);
+                subscribers.clear();
+            }
+
+            byte[] errorBytes = null;
+            MediaType errorType = null;
+            if (response != null && !response.isSuccessful() && response.errorBody() != null && targets.size() > 1) {
+                // Error bodies are one-shot, give every subscriber its own copy
+                try {
+                    errorType = response.errorBody().contentType();
+                    errorBytes = response.errorBody().bytes();
+                } catch (IOException e) {
+                    Log.w(TAG, "Error buffering error body for " + key, e);
+                }
+            }
+
+            for (CoalescingCall<T> target : targets) {
+                if (target.isCanceled()) {
+                    target.callback.onFailure(target, new IOException("Canceled"));
+                } else if (response == null) {
+                    target.callback.onFailure(target, failure);
+                } else if (errorBytes != null) {
+                    target.callback.onResponse(target,
+                            Response.error(ResponseBody.create(errorType, errorBytes), response.raw()));
+                } else {
+                    target.callback.onResponse(target, response);
+                }
+            }
+        }
+    }
+
+    private final class CoalescingCall<T> implements Call<T> {
+        private final Call<T> delegate;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        private InFlight<T> group;
+        private Callback<T> callback;
+
+        CoalescingCall(Call<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            synchronized (this) {
+                if (executed) throw new IllegalStateException("Already executed.");
+                executed = true;
+            }
+            this.callback = callback;
+
+            String key = keyOf(delegate.request());
+            boolean leader = false;
+            synchronized (inFlight) {
+                @SuppressWarnings("unchecked")
+                InFlight<T> existing = (InFlight<T>) inFlight.get(key);
+                if (existing != null) {
+                    group = existing;
+                } else {
+                    group = new InFlight<>(key, delegate);
+                    inFlight.put(key, group);
+                    leader = true;
+                }
+                group.subscribers.add(this);
+            }
+
+            if (leader) {
+                executedCalls.incrementAndGet();
+                group.start();
+            } else {
+                long saved = coalescedCalls.incrementAndGet();
+                Log.d(TAG, "Joined in-flight " + key.substring(0, key.indexOf('|')) + " (saved " + saved + ")");
+            }
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            synchronized (this) {
+                if (executed) throw new IllegalStateException("Already executed.");
+                executed = true;
+            }
+            return delegate.execute();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            InFlight<T> current = group;
+            if (current == null) {
+                delegate.cancel();
+                return;
+            }
+            boolean abandoned;
+            synchronized (inFlight) {
+                abandoned = current.subscribers.stream().allMatch(CoalescingCall::isCanceled);
+                if (abandoned) {
+                    // The next identical GET, e.g. a refresh right after this cancel, starts a fresh call
+                    inFlight.remove(current.key, current);
+                }
+            }
+            // Only stop the shared request once nobody is waiting on it anymore
+            if (abandoned) {
+                current.call.cancel();
+            }
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new CoalescingCall<>(delegate.clone());
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.farmmobileapp.network;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Telemetry collected for one endpoint template, e.g. "GET products/{id}".
+ */
+public class EndpointStats {
+    private final String endpoint;
+    private final Histogram timeToFirstByteMillis = new Histogram();
+    private final Histogram totalMillis = new Histogram();
+    private final Histogram requestBytes = new Histogram();
+    private final Histogram responseBytes = new Histogram();
+    private final Map<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<>();
+    private final AtomicLong failures = new AtomicLong();
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void recordStatus(int code) {
+        statusCodes.computeIfAbsent(code, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Histogram getTimeToFirstByteMillis() {
+        return timeToFirstByteMillis;
+    }
+
+    public Histogram getTotalMillis() {
+        return totalMillis;
+    }
+
+    public Histogram getRequestBytes() {
+        return requestBytes;
+    }
+
+    public Histogram getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * @return Count per HTTP status code, sorted by code
+     */
+    public Map<Integer, Long> getStatusCodes() {
+        Map<Integer, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<Integer, AtomicLong> entry : statusCodes.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().get());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @return Number of calls that ended without an HTTP response
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    void reset() {
+        timeToFirstByteMillis.reset();
+        totalMillis.reset();
+        requestBytes.reset();
+        responseBytes.reset();
+        statusCodes.clear();
+        failures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return endpoint +
+                " n=" + totalMillis.getCount() +
+                " ttfb(p50/p95)=" + timeToFirstByteMillis.getPercentile(50) + "/" + timeToFirstByteMillis.getPercentile(95) + "ms" +
+                " total(p50/p95)=" + totalMillis.getPercentile(50) + "/" + totalMillis.getPercentile(95) + "ms" +
+                " up=" + requestBytes.getSum() + "B" +
+                " down=" + responseBytes.getSum() + "B" +
+                " status=" + getStatusCodes() +
+                " failures=" + failures.get();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.farmmobileapp.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.farmmobileapp.utils.Constants;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Gzips JSON request bodies for hosts that accept compressed uploads.
+ *
+ * Only installed when {@code BuildConfig.GZIP_REQUEST_BODIES} is set, which
+ * is off by default: an {@code Accept-Encoding} response header is a hint
+ * (RFC 7694), not proof that the backend decodes gzip bodies. Even then a
+ * host is only sent gzip after one of its responses advertised it, and if a
+ * compressed request is rejected with 415 the host is marked as not
+ * supporting it and the request is resent uncompressed. Multipart uploads
+ * (images are already compressed) and bodies under
+ * {@link Constants#GZIP_MIN_BODY_BYTES} are sent as-is.
+ */
+public class GzipRequestInterceptor implements Interceptor {
+    private static final String TAG = "GzipRequestInterceptor";
+
+    private enum Support {
+        UNKNOWN,
+        SUPPORTED,
+        UNSUPPORTED
+    }
+
+    private static final Map<String, Support> hosts = new ConcurrentHashMap<>();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host() + ":" + request.url().port();
+        Support support = hosts.getOrDefault(host, Support.UNKNOWN);
+
+        if (support != Support.SUPPORTED || !shouldCompress(request)) {
+            Response response = chain.proceed(request);
+            learn(host, support, response);
+            return response;
+        }
+
+        Request compressed = request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), gzip(request.body()))
+                .build();
+        Response response = chain.proceed(compressed);
+        if (response.code() != 415 || request.body().isOneShot()) {
+            return response;
+        }
+
+        Log.w(TAG, host + " rejected a gzip body, sending uncompressed from now on");
+        hosts.put(host, Support.UNSUPPORTED);
+        response.close();
+        return chain.proceed(request);
+    }
+
+    private static void learn(String host, Support current, Response response) {
+        if (current != Support.UNKNOWN) {
+            return;
+        }
+        String acceptEncoding = response.header("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+            Log.d(TAG, host + " accepts gzip request bodies");
+            hosts.put(host, Support.SUPPORTED);
+        }
+    }
+
+    private static boolean shouldCompress(Request request) {
+        RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null) {
+            return false;
+        }
+        MediaType type = body.contentType();
+        if (type == null || !"json".equals(type.subtype())) {
+            return false;
+        }
+        try {
+            return body.contentLength() >= Constants.GZIP_MIN_BODY_BYTES;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Compress eagerly so the body has a known length and stays repeatable
+     * for {@link RetryInterceptor}.
+     */
+    private static RequestBody gzip(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        try (BufferedSink gzipSink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(gzipSink);
+        }
+        byte[] bytes = buffer.readByteArray();
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return body.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                return bytes.length;
+            }
+
+            @Override
+            public void writeTo(@NonNull BufferedSink sink) throws IOException {
+                sink.write(bytes);
+            }
+        };
+    }
+}
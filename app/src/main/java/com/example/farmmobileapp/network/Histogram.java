@@ -0,0 +1,95 @@
+package com.example.farmmobileapp.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram with power-of-two buckets.
+ *
+ * Bucket {@code i} counts values in {@code (2^(i-1), 2^i]}, bucket 0 counts
+ * zero and one. Recording is a couple of atomic increments, so it can be
+ * called from OkHttp threads while the UI reads it.
+ */
+public class Histogram {
+    private static final int BUCKETS = 48;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / n;
+    }
+
+    /**
+     * Approximate percentile, returned as the upper bound of the bucket that
+     * holds the requested rank.
+     *
+     * @param percentile Value between 0 and 100
+     * @return Upper bound of the matching bucket, 0 when empty
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static int bucketOf(long value) {
+        if (value <= 1) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(value - 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return 1L << bucket;
+    }
+}
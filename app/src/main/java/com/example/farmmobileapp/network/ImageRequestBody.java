@@ -0,0 +1,66 @@
+package com.example.farmmobileapp.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body over a range of an encoded image held in memory.
+ *
+ * Written in segments straight to the socket sink, without a temp file or a
+ * second copy, and repeatable so {@link RetryInterceptor} can resend it.
+ */
+public class ImageRequestBody extends RequestBody {
+    private static final int SEGMENT_SIZE = 16 * 1024;
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+    private final MediaType contentType;
+
+    public ImageRequestBody(byte[] data, MediaType contentType) {
+        this(data, 0, data.length, contentType);
+    }
+
+    public ImageRequestBody(byte[] data, int offset, int length, MediaType contentType) {
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IllegalArgumentException("Range " + offset + "+" + length + " outside " + data.length + " bytes");
+        }
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        int end = offset + length;
+        for (int position = offset; position < end; position += SEGMENT_SIZE) {
+            int count = Math.min(SEGMENT_SIZE, end - position);
+            sink.write(data, position, count);
+            onSegmentWritten(position + count - offset);
+        }
+    }
+
+    /**
+     * Hook called after every segment reached the sink.
+     *
+     * @param bytesWritten Bytes of this body written so far
+     */
+    protected void onSegmentWritten(long bytesWritten) throws IOException {
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.farmmobileapp.network;
 
+import android.content.Context;
 import android.util.Log;
 
+import com.example.farmmobileapp.BuildConfig;
 import com.example.farmmobileapp.models.ApiResponse;
 import com.example.farmmobileapp.models.AuthResponse;
+import com.example.farmmobileapp.utils.Constants;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializer;
@@ -13,15 +16,21 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.TypeAdapter;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.Cache;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
 import okhttp3.RequestBody;
@@ -38,31 +47,30 @@ public class RetrofitClient {
     // Base URL for your local server
     private static final String BASE_URL = "http://192.168.137.204:8180/api/";
     private static Retrofit retrofit = null;
+    private static OkHttpClient okHttpClient = null;
+    private static OkHttpClient imageHttpClient = null;
+    private static Cache httpCache = null;
+    private static final Gson gson = new Gson();
 
-    public static Retrofit getClient() {
+    /**
+     * Set up the on-disk HTTP cache. Must be called before the first
+     * {@link #getClient()} call, otherwise the client is built without a cache.
+     *
+     * @param context Any context, the application context is retained
+     */
+    public static synchronized void init(Context context) {
+        if (httpCache == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), Constants.HTTP_CACHE_DIR);
+            httpCache = new Cache(cacheDir, Constants.HTTP_CACHE_SIZE);
+            Log.d(TAG, "HTTP cache at " + cacheDir.getAbsolutePath());
+        }
+    }
+
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
             try {
-                // Add logging interceptor for debugging
-                HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> {
-                    Log.e(TAG, "OkHttp: " + message);
-                });
-                loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-                OkHttpClient okHttpClient = new OkHttpClient.Builder()
-                        .connectTimeout(30, TimeUnit.SECONDS)
-                        .readTimeout(30, TimeUnit.SECONDS)
-                        .writeTimeout(30, TimeUnit.SECONDS)
-                        .addInterceptor(loggingInterceptor)
-                        .build();
-
-                Log.d(TAG, "Initializing Retrofit with base URL: " + BASE_URL);
-
-                retrofit = new Retrofit.Builder()
-                        .baseUrl(BASE_URL)
-                        .client(okHttpClient)
-                        .addConverterFactory(GsonConverterFactory.create())
-                        .build();
-
+                retrofit = create(BASE_URL, httpCache);
+                okHttpClient = (OkHttpClient) retrofit.callFactory();
                 Log.d(TAG, "Retrofit client initialized successfully");
             } catch (Exception e) {
                 Log.e(TAG, "Error initializing Retrofit client", e);
@@ -72,6 +80,90 @@ public class RetrofitClient {
         return retrofit;
     }
 
+    /**
+     * Build the app's client stack (interceptors, cache rules and call adapters)
+     * against another server, e.g. a local one in tests.
+     *
+     * @param baseUrl API root, ending with "/"
+     * @param cache HTTP cache, or null for none
+     */
+    public static Retrofit create(String baseUrl, Cache cache) {
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                // Short connect timeout, RetryInterceptor tries again on weak links
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .addInterceptor(new TelemetryInterceptor())
+                .addInterceptor(new AuthInterceptor())
+                .addInterceptor(new RetryInterceptor());
+
+        if (BuildConfig.GZIP_REQUEST_BODIES) {
+            clientBuilder.addInterceptor(new GzipRequestInterceptor());
+        }
+
+        // Body logging buffers every payload, only enable it on demand in debug builds
+        if (BuildConfig.DEBUG && BuildConfig.HTTP_BODY_LOGGING) {
+            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> {
+                Log.d(TAG, "OkHttp: " + message);
+            });
+            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            clientBuilder.addInterceptor(loggingInterceptor);
+        }
+
+        if (cache != null) {
+            clientBuilder.cache(cache)
+                    .addNetworkInterceptor(new CacheControlInterceptor(cache, baseUrl));
+        } else {
+            Log.w(TAG, "No HTTP cache (was RetrofitClient.init() called?), caching disabled");
+        }
+
+        Log.d(TAG, "Initializing Retrofit with base URL: " + baseUrl);
+
+        return new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(clientBuilder.build())
+                .addCallAdapterFactory(new CoalescingCallAdapterFactory())
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+    }
+
+    /**
+     * Client for image loads, see {@link com.example.farmmobileapp.FarmAppGlideModule}.
+     *
+     * Shares the API client's connection pool and dispatcher, so images and
+     * calls reuse the same keep-alive connections. It only adds the auth
+     * header, for the app's own servers; the API interceptors and HTTP cache
+     * are left out because Glide retries and caches images itself.
+     */
+    public static synchronized OkHttpClient getImageHttpClient() {
+        if (imageHttpClient == null) {
+            getClient();
+            OkHttpClient.Builder builder = okHttpClient.newBuilder().cache(null);
+            builder.interceptors().clear();
+            builder.networkInterceptors().clear();
+            Set<String> hosts = new HashSet<>(Arrays.asList(
+                    HttpUrl.get(BASE_URL).host(), HttpUrl.get(Constants.BASE_URL).host()));
+            imageHttpClient = builder.addInterceptor(new AuthInterceptor(hosts)).build();
+        }
+        return imageHttpClient;
+    }
+
+    /**
+     * @return Gson instance used by the Retrofit converter, shared so bodies
+     * parsed outside Retrofit read exactly like regular calls
+     */
+    public static Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * @return False while the backend's circuit is open; screens can show
+     * cached data straight away instead of waiting for a request to fail
+     */
+    public static boolean isBackendReachable() {
+        return CircuitBreaker.getState(HttpUrl.get(BASE_URL)) == CircuitBreaker.State.CLOSED;
+    }
+
     public static String getBaseUrl() {
         return BASE_URL;
     }
@@ -0,0 +1,150 @@
+package com.example.farmmobileapp.network;
+
+import android.util.Log;
+
+import com.example.farmmobileapp.utils.Constants;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Retries idempotent requests with jittered exponential backoff and routes
+ * every attempt through the host's {@link CircuitBreaker}.
+ *
+ * GET, HEAD, PUT, DELETE and OPTIONS are retried, as is any request carrying
+ * an Idempotency-Key header. Retries happen on I/O errors and on 502/503/504.
+ * Each wait is a random value between zero and the exponential cap ("full
+ * jitter") so clients that failed together do not come back together.
+ *
+ * While the circuit is open, GETs are answered from the HTTP cache only and
+ * everything else fails immediately with {@link CircuitOpenException}.
+ */
+public class RetryInterceptor implements Interceptor {
+    private static final String TAG = "RetryInterceptor";
+    // Backoff waits are cut into slices this long so a cancelled call frees its thread quickly
+    private static final long CANCEL_CHECK_MILLIS = 100;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        CircuitBreaker breaker = CircuitBreaker.forUrl(request.url());
+        boolean retryable = isIdempotent(request);
+        int maxAttempts = retryable ? Constants.RETRY_MAX_ATTEMPTS : 1;
+
+        for (int attempt = 1; ; attempt++) {
+            if (chain.call().isCanceled()) {
+                throw new IOException("Canceled");
+            }
+            if (!breaker.allowRequest()) {
+                return failFast(chain, request);
+            }
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (chain.call().isCanceled()) {
+                    throw e;
+                }
+                breaker.recordFailure(request.url());
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                Log.d(TAG, "Attempt " + attempt + " of " + request.method() + " " + request.url().encodedPath()
+                        + " failed: " + e.getMessage());
+                sleep(chain, backoffMillis(attempt));
+                continue;
+            }
+
+            if (!isRetryableStatus(response.code())) {
+                breaker.recordSuccess();
+                return response;
+            }
+            breaker.recordFailure(request.url());
+            if (attempt >= maxAttempts) {
+                return response;
+            }
+            long delay = retryAfterMillis(response, attempt);
+            response.close();
+            Log.d(TAG, "Attempt " + attempt + " of " + request.method() + " " + request.url().encodedPath()
+                    + " got " + response.code());
+            sleep(chain, delay);
+        }
+    }
+
+    private static Response failFast(Chain chain, Request request) throws IOException {
+        if ("GET".equals(request.method())) {
+            // Serve whatever the cache still holds instead of waiting for a timeout
+            Response cached = chain.proceed(request.newBuilder()
+                    .cacheControl(CacheControl.FORCE_CACHE)
+                    .build());
+            if (cached.code() != 504) {
+                return cached;
+            }
+            cached.close();
+        }
+        throw new CircuitOpenException(request.url().host());
+    }
+
+    static boolean isIdempotent(Request request) {
+        switch (request.method()) {
+            case "GET":
+            case "HEAD":
+            case "PUT":
+            case "DELETE":
+            case "OPTIONS":
+                return true;
+            default:
+                return request.header("Idempotency-Key") != null;
+        }
+    }
+
+    private static boolean isRetryableStatus(int code) {
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    private static long backoffMillis(int attempt) {
+        long cap = Math.min(Constants.RETRY_MAX_DELAY_MILLIS,
+                Constants.RETRY_BASE_DELAY_MILLIS << Math.min(attempt - 1, 16));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static long retryAfterMillis(Response response, int attempt) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                long seconds = Long.parseLong(retryAfter.trim());
+                return Math.min(seconds * 1000, Constants.RETRY_MAX_DELAY_MILLIS);
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form, fall back to our own backoff
+            }
+        }
+        return backoffMillis(attempt);
+    }
+
+    /**
+     * Wait before the next attempt, giving up as soon as the call is cancelled.
+     */
+    private static void sleep(Chain chain, long millis) throws IOException {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        try {
+            long remaining = millis;
+            while (remaining > 0) {
+                if (chain.call().isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                Thread.sleep(Math.min(remaining, CANCEL_CHECK_MILLIS));
+                remaining = (deadline - System.nanoTime()) / 1_000_000L;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.farmmobileapp.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Invocation;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * Records per-endpoint latency, payload size and status codes.
+ *
+ * Calls are grouped by their Retrofit template ("GET products/{id}") so ids in
+ * the path do not split the numbers. Time to first byte is measured when the
+ * response headers arrive; total latency and response bytes when the body has
+ * been read to the end or closed. Bodies are counted as they stream through,
+ * nothing is buffered.
+ */
+public class TelemetryInterceptor implements Interceptor {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private static final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private static final Map<Method, String> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @return Live view of the stats, keyed by endpoint template
+     */
+    public static Map<String, EndpointStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * @param endpoint Template such as "GET products"
+     * @return Stats for that endpoint or null if it has not been called yet
+     */
+    public static EndpointStats getStats(String endpoint) {
+        return stats.get(endpoint);
+    }
+
+    public static void reset() {
+        for (EndpointStats endpointStats : stats.values()) {
+            endpointStats.reset();
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        EndpointStats endpointStats = stats.computeIfAbsent(templateOf(request), EndpointStats::new);
+
+        if (request.body() != null) {
+            endpointStats.getRequestBytes().record(request.body().contentLength());
+        }
+
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            endpointStats.recordFailure();
+            throw e;
+        }
+        endpointStats.getTimeToFirstByteMillis().record(elapsedMillis(start));
+        endpointStats.recordStatus(response.code());
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            endpointStats.getTotalMillis().record(elapsedMillis(start));
+            endpointStats.getResponseBytes().record(0);
+            return response;
+        }
+        return response.newBuilder()
+                .body(new MeteredBody(body, endpointStats, start))
+                .build();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    static String templateOf(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            String template = templates.computeIfAbsent(invocation.method(), TelemetryInterceptor::templateOf);
+            if (template != null) {
+                return template;
+            }
+        }
+        // Not a Retrofit call (e.g. images), collapse numeric ids instead
+        return request.method() + " " + ID_SEGMENT.matcher(request.url().encodedPath()).replaceAll("/{id}");
+    }
+
+    private static String templateOf(Method method) {
+        for (Annotation annotation : method.getAnnotations()) {
+            if (annotation instanceof GET) return "GET " + ((GET) annotation).value();
+            if (annotation instanceof POST) return "POST " + ((POST) annotation).value();
+            if (annotation instanceof PUT) return "PUT " + ((PUT) annotation).value();
+            if (annotation instanceof PATCH) return "PATCH " + ((PATCH) annotation).value();
+            if (annotation instanceof DELETE) return "DELETE " + ((DELETE) annotation).value();
+            if (annotation instanceof HEAD) return "HEAD " + ((HEAD) annotation).value();
+        }
+        return null;
+    }
+
+    /**
+     * Counts bytes as the caller reads them and records the totals once.
+     */
+    private static final class MeteredBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final EndpointStats endpointStats;
+        private final long start;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private BufferedSource source;
+        private long bytesRead;
+
+        MeteredBody(ResponseBody delegate, EndpointStats endpointStats, long start) {
+            this.delegate = delegate;
+            this.endpointStats = endpointStats;
+            this.start = start;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    @Override
+                    public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read == -1) {
+                            finish();
+                        } else {
+                            bytesRead += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        finish();
+                        super.close();
+                    }
+                });
+            }
+            return source;
+        }
+
+        private void finish() {
+            if (recorded.compareAndSet(false, true)) {
+                endpointStats.getTotalMillis().record(elapsedMillis(start));
+                endpointStats.getResponseBytes().record(bytesRead);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.farmmobileapp.paging;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.farmmobileapp.models.ApiResponse;
+import com.example.farmmobileapp.models.Order;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.utils.Constants;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Pages through the farmer or client order list as the user scrolls.
+ *
+ * The next page is requested once the user is within one page of the end.
+ * New orders arriving while paging shift the server offsets, so an order can
+ * show up again at the top of the next page; those duplicates are dropped by
+ * id. A page shorter than the requested size is treated as the last one.
+ */
+public class OrderPaginator {
+
+    public enum Scope {
+        FARMER,
+        CLIENT
+    }
+
+    public interface Listener {
+        /**
+         * @param reset True when the list was reloaded from the first page
+         * @param orders Orders to append, or the whole new list when reset
+         */
+        void onOrdersLoaded(boolean reset, List<Order> orders);
+
+        void onLoadingChanged(boolean loading);
+
+        /**
+         * @param t {@link HttpException} for non-2xx responses, otherwise the error
+         */
+        void onError(Throwable t);
+    }
+
+    private final Set<Long> seenIds = new HashSet<>();
+    private final Paginator<Order> paginator;
+
+    public OrderPaginator(ApiService apiService, Scope scope, Listener listener) {
+        this(apiService, scope, Constants.DEFAULT_PAGE_SIZE, listener);
+    }
+
+    /**
+     * @param apiService Service used for the order calls
+     * @param scope Whose orders to list
+     * @param pageSize Orders per request
+     * @param listener Receives new orders on the main thread
+     */
+    public OrderPaginator(ApiService apiService, Scope scope, int pageSize, Listener listener) {
+        Paginator.PageSource<Order> source = (page, size, callback) -> {
+            Call<ApiResponse<List<Order>>> call = scope == Scope.FARMER
+                    ? apiService.getFarmerOrders(page, size)
+                    : apiService.getClientOrders(page, size);
+            call.enqueue(new Callback<ApiResponse<List<Order>>>() {
+                @Override
+                public void onResponse(@NonNull Call<ApiResponse<List<Order>>> call,
+                                       @NonNull Response<ApiResponse<List<Order>>> response) {
+                    ApiResponse<List<Order>> body = response.body();
+                    if (!response.isSuccessful() || body == null) {
+                        callback.onError(new HttpException(response));
+                    } else if (!body.isSuccess()) {
+                        callback.onError(new IOException(body.getMessage() != null
+                                ? body.getMessage() : "Failed to load orders"));
+                    } else {
+                        List<Order> orders = body.getData() != null ? body.getData() : Collections.emptyList();
+                        callback.onPage(orders, orders.size() < size);
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<ApiResponse<List<Order>>> call, @NonNull Throwable t) {
+                    callback.onError(t);
+                }
+            });
+            return call;
+        };
+
+        paginator = new Paginator<>(source, pageSize, pageSize, new Paginator.Listener<Order>() {
+            @Override
+            public void onPageLoaded(int page, List<Order> items) {
+                boolean reset = page == 0;
+                if (reset) {
+                    seenIds.clear();
+                }
+                List<Order> fresh = new ArrayList<>(items.size());
+                for (Order order : items) {
+                    if (order.getId() == null || seenIds.add(order.getId())) {
+                        fresh.add(order);
+                    }
+                }
+                if (reset || !fresh.isEmpty()) {
+                    listener.onOrdersLoaded(reset, fresh);
+                }
+            }
+
+            @Override
+            public void onLoadingChanged(boolean loading) {
+                listener.onLoadingChanged(loading);
+            }
+
+            @Override
+            public void onError(int page, Throwable t) {
+                listener.onError(t);
+            }
+        });
+    }
+
+    public void attachTo(RecyclerView recyclerView) {
+        paginator.attachTo(recyclerView);
+    }
+
+    public void detach() {
+        paginator.detach();
+    }
+
+    /**
+     * Reload from the first page.
+     */
+    public void refresh() {
+        paginator.refresh();
+    }
+
+    public void cancel() {
+        paginator.cancel();
+    }
+
+    public boolean isLoading() {
+        return paginator.isLoading();
+    }
+}
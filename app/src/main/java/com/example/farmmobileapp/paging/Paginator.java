@@ -0,0 +1,255 @@
+package com.example.farmmobileapp.paging;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.farmmobileapp.models.PageResponse;
+import com.example.farmmobileapp.utils.Constants;
+
+import java.util.Collections;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Loads a server-side paginated list one page at a time.
+ *
+ * Attached to a RecyclerView, it requests the next page as soon as the last
+ * visible item is within {@code prefetchDistance} items of the end, so the
+ * user rarely reaches the bottom before the next page is there. Only one
+ * page is in flight at a time; responses that arrive after a
+ * {@link #refresh()} are dropped. After a failed page, scrolling only asks
+ * again once an exponential backoff has passed, so a dead connection is not
+ * hit on every scroll event; {@link #loadNextPage()} retries right away.
+ *
+ * All methods must be called on the main thread.
+ */
+public class Paginator<T> {
+    private static final String TAG = "Paginator";
+
+    /**
+     * Loads a single page. Implementations call the callback exactly once, on
+     * the main thread, and return the call so it can be cancelled.
+     */
+    public interface PageSource<T> {
+        Call<?> load(int page, int size, PageCallback<T> callback);
+    }
+
+    public interface PageCallback<T> {
+        /**
+         * @param items Items of the page, may be empty
+         * @param last Whether this is the final page
+         */
+        void onPage(List<T> items, boolean last);
+
+        /**
+         * @param t {@link HttpException} for non-2xx responses, otherwise the network error
+         */
+        void onError(Throwable t);
+    }
+
+    /**
+     * Factory for endpoints returning {@link PageResponse}.
+     */
+    public interface PageCall<T> {
+        Call<PageResponse<T>> create(int page, int size);
+    }
+
+    public interface Listener<T> {
+        /**
+         * @param page Page number, 0 means the list was (re)loaded from the start
+         * @param items Items to append, or the whole new content for page 0
+         */
+        void onPageLoaded(int page, List<T> items);
+
+        void onLoadingChanged(boolean loading);
+
+        void onError(int page, Throwable t);
+    }
+
+    private final PageSource<T> source;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final Listener<T> listener;
+
+    private RecyclerView recyclerView;
+    private Call<?> inFlight;
+    private int nextPage = 0;
+    private int generation = 0;
+    private boolean loading;
+    private boolean endReached;
+    private int failures;
+    private long retryAtMillis;
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            if (dy > 0) {
+                checkPrefetch();
+            }
+        }
+    };
+
+    /**
+     * @param source Loads individual pages
+     * @param pageSize Items requested per page
+     * @param prefetchDistance How many items before the end the next page is requested
+     * @param listener Receives loaded pages
+     */
+    public Paginator(PageSource<T> source, int pageSize, int prefetchDistance, Listener<T> listener) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.listener = listener;
+    }
+
+    /**
+     * Adapt an endpoint returning {@link PageResponse} to a {@link PageSource}.
+     */
+    public static <T> PageSource<T> fromPages(PageCall<T> pageCall) {
+        return (page, size, callback) -> {
+            Call<PageResponse<T>> call = pageCall.create(page, size);
+            call.enqueue(new Callback<PageResponse<T>>() {
+                @Override
+                public void onResponse(@NonNull Call<PageResponse<T>> call, @NonNull Response<PageResponse<T>> response) {
+                    PageResponse<T> body = response.body();
+                    if (!response.isSuccessful() || body == null) {
+                        callback.onError(new HttpException(response));
+                        return;
+                    }
+                    List<T> content = body.getContent() != null ? body.getContent() : Collections.emptyList();
+                    // Guard against servers that keep returning empty pages
+                    callback.onPage(content, body.isLast() || content.isEmpty());
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<PageResponse<T>> call, @NonNull Throwable t) {
+                    callback.onError(t);
+                }
+            });
+            return call;
+        };
+    }
+
+    /**
+     * Start prefetching when the list scrolls near its end.
+     * The layout manager must be a {@link LinearLayoutManager} (or GridLayoutManager).
+     */
+    public void attachTo(RecyclerView recyclerView) {
+        detach();
+        this.recyclerView = recyclerView;
+        recyclerView.addOnScrollListener(scrollListener);
+    }
+
+    public void detach() {
+        if (recyclerView != null) {
+            recyclerView.removeOnScrollListener(scrollListener);
+            recyclerView = null;
+        }
+    }
+
+    /**
+     * Drop everything and load the first page again.
+     */
+    public void refresh() {
+        cancel();
+        nextPage = 0;
+        endReached = false;
+        failures = 0;
+        retryAtMillis = 0;
+        loadNextPage();
+    }
+
+    /**
+     * Cancel the page in flight, e.g. when the screen goes away.
+     */
+    public void cancel() {
+        generation++;
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+        setLoading(false);
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    public void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        final int page = nextPage;
+        final int requestGeneration = generation;
+        setLoading(true);
+        inFlight = source.load(page, pageSize, new PageCallback<T>() {
+            @Override
+            public void onPage(List<T> items, boolean last) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                inFlight = null;
+                nextPage = page + 1;
+                endReached = last;
+                failures = 0;
+                retryAtMillis = 0;
+                setLoading(false);
+                Log.d(TAG, "Loaded page " + page + " (" + items.size() + " items" + (last ? ", last" : "") + ")");
+                listener.onPageLoaded(page, items);
+
+                // A short page may not fill the screen, so no scroll event would follow
+                if (recyclerView != null && !endReached) {
+                    recyclerView.post(Paginator.this::checkPrefetch);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                inFlight = null;
+                failures++;
+                long delay = Math.min(Constants.PAGE_RETRY_MAX_DELAY_MILLIS,
+                        Constants.PAGE_RETRY_BASE_DELAY_MILLIS << Math.min(failures - 1, 16));
+                retryAtMillis = SystemClock.uptimeMillis() + delay;
+                setLoading(false);
+                listener.onError(page, t);
+            }
+        });
+    }
+
+    private void checkPrefetch() {
+        if (recyclerView == null || loading || endReached || SystemClock.uptimeMillis() < retryAtMillis) {
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        int total = layoutManager.getItemCount();
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        if (lastVisible != RecyclerView.NO_POSITION && lastVisible >= total - 1 - prefetchDistance) {
+            loadNextPage();
+        }
+    }
+
+    private void setLoading(boolean loading) {
+        if (this.loading != loading) {
+            this.loading = loading;
+            listener.onLoadingChanged(loading);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.farmmobileapp.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared thread pools so background work does not spin up ad-hoc threads.
+ */
+public class AppExecutors {
+    private static AppExecutors instance;
+
+    private final ExecutorService diskIO;
+    private final ExecutorService networkIO;
+    private final ExecutorService imageIO;
+    private final ExecutorService listRows;
+    private final ExecutorService search;
+    private final Executor mainThread;
+
+    private AppExecutors() {
+        diskIO = Executors.newSingleThreadExecutor();
+        networkIO = Executors.newFixedThreadPool(3);
+        imageIO = Executors.newSingleThreadExecutor();
+        listRows = Executors.newSingleThreadExecutor();
+        search = Executors.newSingleThreadExecutor();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * @return Single thread for database and file work, runs tasks in order
+     */
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    /**
+     * @return Pool for reading response bodies and other blocking network work
+     */
+    public ExecutorService networkIO() {
+        return networkIO;
+    }
+
+    /**
+     * @return Single thread for decoding and encoding images, so only one
+     * large bitmap is in memory at a time
+     */
+    public ExecutorService imageIO() {
+        return imageIO;
+    }
+
+    /**
+     * @return Single thread for formatting list rows before they are shown,
+     * runs tasks in order so updates reach the adapters in the order made
+     */
+    public ExecutorService listRows() {
+        return listRows;
+    }
+
+    /**
+     * @return Single thread owning the product search index, so index
+     * updates and queries never run concurrently
+     */
+    public ExecutorService search() {
+        return search;
+    }
+
+    /**
+     * @return Executor posting to the UI thread
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+}
@@ -43,6 +43,7 @@ public class Constants {
     // API Response codes
     public static final int HTTP_OK = 200;
     public static final int HTTP_CREATED = 201;
+    public static final int HTTP_NOT_MODIFIED = 304;
     public static final int HTTP_BAD_REQUEST = 400;
     public static final int HTTP_UNAUTHORIZED = 401;
     public static final int HTTP_FORBIDDEN = 403;
@@ -68,6 +69,15 @@ public class Constants {
     public static final long MAX_IMAGE_SIZE = 1024 * 1024; // 1MB
     public static final long MAX_PROFILE_IMAGE_SIZE = 2 * 1024 * 1024; // 2MB
 
+    // Longest edge images are scaled down to before upload (in pixels)
+    public static final int PRODUCT_IMAGE_MAX_EDGE = 1600;
+    public static final int PROFILE_IMAGE_MAX_EDGE = 800;
+
+    // Resumable image uploads are sent in parts of this size, and give up after this many
+    // offset conflicts (409) in a row until the next resume
+    public static final int UPLOAD_CHUNK_SIZE = 128 * 1024; // 128KB
+    public static final int UPLOAD_MAX_CONFLICTS = 3;
+
     // Network timeouts (in seconds)
     public static final int NETWORK_CONNECT_TIMEOUT = 30;
     public static final int NETWORK_READ_TIMEOUT = 30;
@@ -77,6 +87,28 @@ public class Constants {
     public static final int DEFAULT_PAGE_SIZE = 10;
     public static final int DEFAULT_PAGE = 0;
 
+    // Product grid paging: items per page and how many items before the end the next page is fetched
+    public static final int PRODUCT_PAGE_SIZE = 30;
+    public static final int PRODUCT_PREFETCH_DISTANCE = 10;
+
+    // Paging: backoff before scrolling asks again for a page that failed to load
+    public static final long PAGE_RETRY_BASE_DELAY_MILLIS = 2 * 1000; // 2 seconds
+    public static final long PAGE_RETRY_MAX_DELAY_MILLIS = 30 * 1000; // 30 seconds
+
+    // Product grid images: columns, and rows below the screen whose images are fetched ahead
+    public static final int PRODUCT_GRID_SPAN_COUNT = 2;
+    public static final int PRODUCT_PRELOAD_ROWS = 3;
+
+    // Catalog search: pause in typing before a query runs, query time worth logging,
+    // and removed products kept in the index before it is rebuilt
+    public static final long SEARCH_DEBOUNCE_MILLIS = 150;
+    public static final long SEARCH_FRAME_BUDGET_MILLIS = 16;
+    public static final int SEARCH_COMPACT_MIN_DEAD = 256;
+
+    // Server-side catalog search: shortest query sent, and pause in typing before it is sent
+    public static final int SEARCH_SERVER_MIN_CHARS = 2;
+    public static final long SEARCH_SERVER_DEBOUNCE_MILLIS = 350;
+
     // Validation
     public static final int MIN_PASSWORD_LENGTH = 6;
     public static final int MAX_PASSWORD_LENGTH = 50;
@@ -97,10 +129,50 @@ public class Constants {
     public static final String CACHE_USER_PROFILE = "user_profile_cache";
     public static final String CACHE_ORDERS = "orders_cache";
 
+    // HTTP cache
+    public static final String HTTP_CACHE_DIR = "http_cache";
+    public static final long HTTP_CACHE_SIZE = 10 * 1024 * 1024; // 10MB
+
+    // Glide image cache: disk budget, share of the app heap for decoded images
+    // (halved on low-RAM devices), and how many loads between cache statistics logs
+    public static final String IMAGE_DISK_CACHE_DIR = "image_cache";
+    public static final long IMAGE_DISK_CACHE_SIZE = 100 * 1024 * 1024; // 100MB
+    public static final int IMAGE_MEMORY_CACHE_HEAP_DIVISOR = 8;
+    public static final int IMAGE_BITMAP_POOL_HEAP_DIVISOR = 8;
+    public static final int IMAGE_STATS_LOG_INTERVAL = 50;
+
+    // Resized image renditions the server keeps, in pixels wide, and the query parameter asking for one
+    public static final int[] IMAGE_RENDITION_WIDTHS = {160, 320, 480, 720, 1080};
+    public static final String IMAGE_RENDITION_PARAM = "w";
+
     // Refresh intervals (in milliseconds)
     public static final long REFRESH_INTERVAL_PRODUCTS = 5 * 60 * 1000; // 5 minutes
     public static final long REFRESH_INTERVAL_ORDERS = 2 * 60 * 1000; // 2 minutes
 
+    // Delta sync: changes per request, requests per sync before a full reload is cheaper,
+    // and how far before the last full fetch to start when there is no sync token yet
+    public static final int DELTA_SYNC_PAGE_SIZE = 200;
+    public static final int DELTA_SYNC_MAX_ROUNDS = 5;
+    public static final long DELTA_SYNC_CLOCK_SKEW_MILLIS = 60 * 1000; // 1 minute
+
+    // Order outbox: orders sent per batch, and backoff between flushes that hit a transient failure
+    public static final int OUTBOX_BATCH_SIZE = 10;
+    public static final long OUTBOX_RETRY_BASE_DELAY_MILLIS = 5 * 1000; // 5 seconds
+    public static final long OUTBOX_RETRY_MAX_DELAY_MILLIS = 5 * 60 * 1000; // 5 minutes
+
+    // Request bodies smaller than this are not worth gzipping
+    public static final long GZIP_MIN_BODY_BYTES = 256;
+
+    // Retry policy for idempotent requests
+    public static final int RETRY_MAX_ATTEMPTS = 3;
+    public static final long RETRY_BASE_DELAY_MILLIS = 500;
+    public static final long RETRY_MAX_DELAY_MILLIS = 8 * 1000;
+
+    // Circuit breaker: consecutive failures before failing fast, and how long to wait before probing
+    public static final int CIRCUIT_FAILURE_THRESHOLD = 4;
+    public static final long CIRCUIT_OPEN_MILLIS = 15 * 1000; // 15 seconds
+    public static final long CIRCUIT_MAX_OPEN_MILLIS = 2 * 60 * 1000; // 2 minutes
+
     // Network
     public static final int CONNECTION_TIMEOUT = 30; // seconds
     public static final int READ_TIMEOUT = 30; // seconds
@@ -0,0 +1,157 @@
+package com.example.farmmobileapp.utils;
+
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.cache.MemoryCache;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts where Glide found each image, registered as a global request
+ * listener by {@link com.example.farmmobileapp.FarmAppGlideModule}.
+ *
+ * Every {@link Constants#IMAGE_STATS_LOG_INTERVAL} loads the hit ratios and
+ * the fill of the memory cache and bitmap pool are logged, so image memory
+ * can be watched while flinging the product grid. Grid rows also report
+ * whether their image was ready when they were bound, which shows how well
+ * preloading keeps up with scrolling.
+ */
+public class ImageLoadStats implements RequestListener<Object> {
+    private static final String TAG = "ImageLoadStats";
+
+    private static final ImageLoadStats instance = new ImageLoadStats();
+
+    private final AtomicInteger memoryHits = new AtomicInteger();
+    private final AtomicInteger diskHits = new AtomicInteger();
+    private final AtomicInteger remoteLoads = new AtomicInteger();
+    private final AtomicInteger localLoads = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger bindsReady = new AtomicInteger();
+    private final AtomicInteger bindsWaiting = new AtomicInteger();
+    private volatile MemoryCache memoryCache;
+    private volatile BitmapPool bitmapPool;
+
+    private ImageLoadStats() {
+    }
+
+    public static ImageLoadStats getInstance() {
+        return instance;
+    }
+
+    /**
+     * Caches whose fill is reported with the counts.
+     */
+    public void attach(MemoryCache memoryCache, BitmapPool bitmapPool) {
+        this.memoryCache = memoryCache;
+        this.bitmapPool = bitmapPool;
+    }
+
+    @Override
+    public boolean onResourceReady(@NonNull Object resource, @NonNull Object model, Target<Object> target,
+                                   @NonNull DataSource dataSource, boolean isFirstResource) {
+        switch (dataSource) {
+            case MEMORY_CACHE:
+                memoryHits.incrementAndGet();
+                break;
+            case RESOURCE_DISK_CACHE:
+            case DATA_DISK_CACHE:
+                diskHits.incrementAndGet();
+                break;
+            case REMOTE:
+                remoteLoads.incrementAndGet();
+                break;
+            default:
+                localLoads.incrementAndGet();
+                break;
+        }
+        maybeLog();
+        return false;
+    }
+
+    @Override
+    public boolean onLoadFailed(@Nullable GlideException e, @Nullable Object model, @NonNull Target<Object> target,
+                                boolean isFirstResource) {
+        failures.incrementAndGet();
+        maybeLog();
+        return false;
+    }
+
+    /**
+     * A row was bound to an image.
+     *
+     * @param ready Whether the image was shown right away, rather than the placeholder
+     */
+    public void recordBind(boolean ready) {
+        (ready ? bindsReady : bindsWaiting).incrementAndGet();
+    }
+
+    /**
+     * @return Row binds that showed their image right away, out of all binds
+     */
+    public float getBindReadyRatio() {
+        int ready = bindsReady.get();
+        int total = ready + bindsWaiting.get();
+        return total == 0 ? 0f : (float) ready / total;
+    }
+
+    public int getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public int getDiskHits() {
+        return diskHits.get();
+    }
+
+    public int getRemoteLoads() {
+        return remoteLoads.get();
+    }
+
+    public int getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return Loads served from the memory or disk cache, out of all finished loads
+     */
+    public float getHitRatio() {
+        int hits = memoryHits.get() + diskHits.get();
+        int total = hits + remoteLoads.get() + localLoads.get() + failures.get();
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    private void maybeLog() {
+        int total = memoryHits.get() + diskHits.get() + remoteLoads.get() + localLoads.get() + failures.get();
+        if (total % Constants.IMAGE_STATS_LOG_INTERVAL != 0) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append(total).append(" loads: memory ").append(memoryHits.get())
+                .append(", disk ").append(diskHits.get())
+                .append(", remote ").append(remoteLoads.get())
+                .append(", failed ").append(failures.get())
+                .append(", hit ratio ").append(Math.round(getHitRatio() * 100)).append('%');
+        int binds = bindsReady.get() + bindsWaiting.get();
+        if (binds > 0) {
+            message.append(", ready at bind ").append(bindsReady.get()).append('/').append(binds);
+        }
+        MemoryCache cache = memoryCache;
+        if (cache != null) {
+            message.append(", memory cache ").append(cache.getCurrentSize() / 1024)
+                    .append('/').append(cache.getMaxSize() / 1024).append("KB");
+        }
+        BitmapPool pool = bitmapPool;
+        if (pool != null) {
+            message.append(", bitmap pool ").append(pool.getMaxSize() / 1024).append("KB");
+        }
+        Log.d(TAG, message.toString());
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.farmmobileapp.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Turns a picked image into an upload that fits the server's size limits.
+ *
+ * The source is decoded with subsampling so a 12 MP photo never sits in
+ * memory at full size, rotated upright from its EXIF orientation, scaled to
+ * the target's longest edge and re-encoded as JPEG. The quality is searched
+ * for the best value that fits the byte limit; if even the lowest quality is
+ * too big, the edge is reduced and the search repeated.
+ */
+public class ImagePreparer {
+    private static final String TAG = "ImagePreparer";
+
+    private static final int MAX_QUALITY = 90;
+    private static final int MIN_QUALITY = 50;
+    private static final float SHRINK_STEP = 0.75f;
+    private static final int MIN_EDGE = 320;
+
+    public enum Target {
+        PRODUCT(Constants.PRODUCT_IMAGE_MAX_EDGE, Constants.MAX_IMAGE_SIZE),
+        PROFILE(Constants.PROFILE_IMAGE_MAX_EDGE, Constants.MAX_PROFILE_IMAGE_SIZE);
+
+        final int maxEdge;
+        final long maxBytes;
+
+        Target(int maxEdge, long maxBytes) {
+            this.maxEdge = maxEdge;
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    private ImagePreparer() {
+    }
+
+    /**
+     * Prepare an image in the background.
+     *
+     * @param onReady Called on the main thread with the result
+     * @param onError Called on the main thread if the image cannot be read
+     */
+    public static void prepare(Context context, Uri uri, Target target,
+                               Consumer<PreparedImage> onReady, Consumer<IOException> onError) {
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        AppExecutors executors = AppExecutors.getInstance();
+        executors.imageIO().execute(() -> {
+            try {
+                PreparedImage image = prepare(resolver, uri, target);
+                executors.mainThread().execute(() -> onReady.accept(image));
+            } catch (IOException e) {
+                Log.e(TAG, "Could not prepare " + uri, e);
+                executors.mainThread().execute(() -> onError.accept(e));
+            }
+        });
+    }
+
+    /**
+     * Blocking variant; call off the main thread.
+     */
+    public static PreparedImage prepare(ContentResolver resolver, Uri uri, Target target) throws IOException {
+        long start = System.currentTimeMillis();
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not an image: " + uri);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, target.maxEdge);
+        Bitmap decoded;
+        try (InputStream in = open(resolver, uri)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Could not decode " + uri);
+        }
+
+        Bitmap bitmap = upright(decoded, orientation(resolver, uri));
+        try {
+            int edge = Math.min(target.maxEdge, Math.max(bitmap.getWidth(), bitmap.getHeight()));
+            while (true) {
+                Bitmap scaled = scaleToEdge(bitmap, edge);
+                try {
+                    byte[] encoded = encodeToFit(scaled, target.maxBytes);
+                    if (encoded != null || edge <= MIN_EDGE) {
+                        if (encoded == null) {
+                            encoded = encode(scaled, MIN_QUALITY);
+                        }
+                        Log.d(TAG, bounds.outWidth + "x" + bounds.outHeight + " -> " + scaled.getWidth() + "x"
+                                + scaled.getHeight() + ", " + encoded.length + " bytes in "
+                                + (System.currentTimeMillis() - start) + " ms");
+                        return new PreparedImage(encoded, Constants.IMAGE_TYPE_JPEG,
+                                scaled.getWidth(), scaled.getHeight());
+                    }
+                } finally {
+                    if (scaled != bitmap) {
+                        scaled.recycle();
+                    }
+                }
+                edge = Math.max(MIN_EDGE, (int) (edge * SHRINK_STEP));
+            }
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return in;
+    }
+
+    /**
+     * Largest power of two that keeps the decoded longest edge at or above {@code maxEdge}.
+     */
+    static int sampleSize(int width, int height, int maxEdge) {
+        int longest = Math.max(width, height);
+        int sample = 1;
+        while (longest / (sample * 2) >= maxEdge) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static int orientation(ContentResolver resolver, Uri uri) {
+        try (InputStream in = open(resolver, uri)) {
+            return new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            // No EXIF (PNG, WebP, ...) or unreadable, keep as is
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    private static Bitmap upright(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(270);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            default:
+                return bitmap;
+        }
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (rotated != bitmap) {
+            bitmap.recycle();
+        }
+        return rotated;
+    }
+
+    private static Bitmap scaleToEdge(Bitmap bitmap, int edge) {
+        int longest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        Bitmap scaled = bitmap;
+        if (longest > edge) {
+            float scale = edge / (float) longest;
+            scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                    Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+        }
+        if (!scaled.hasAlpha()) {
+            return scaled;
+        }
+        // JPEG has no alpha; transparent pixels would turn black
+        Bitmap opaque = Bitmap.createBitmap(scaled.getWidth(), scaled.getHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(opaque);
+        canvas.drawColor(Color.WHITE);
+        canvas.drawBitmap(scaled, 0, 0, null);
+        if (scaled != bitmap) {
+            scaled.recycle();
+        }
+        return opaque;
+    }
+
+    /**
+     * Binary search for the highest quality whose output fits.
+     *
+     * @return Encoded bytes, or null if even {@link #MIN_QUALITY} is too big
+     */
+    private static byte[] encodeToFit(Bitmap bitmap, long maxBytes) {
+        byte[] best = encode(bitmap, MAX_QUALITY);
+        if (best.length <= maxBytes) {
+            return best;
+        }
+        best = null;
+        int low = MIN_QUALITY;
+        int high = MAX_QUALITY - 1;
+        while (low <= high) {
+            int quality = (low + high) >>> 1;
+            byte[] encoded = encode(bitmap, quality);
+            if (encoded.length <= maxBytes) {
+                best = encoded;
+                low = quality + 1;
+            } else {
+                high = quality - 1;
+            }
+        }
+        return best;
+    }
+
+    private static byte[] encode(Bitmap bitmap, int quality) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        return out.toByteArray();
+    }
+}
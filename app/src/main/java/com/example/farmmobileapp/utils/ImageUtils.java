@@ -5,6 +5,7 @@ import android.util.Log;
 import android.widget.ImageView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.farmmobileapp.R;
@@ -20,6 +21,24 @@ import androidx.annotation.NonNull;
 
 public class ImageUtils {
 
+    /**
+     * Options for product thumbnails in lists: the photos have no alpha, so
+     * RGB_565 halves their memory next to ARGB_8888 while flinging the grid.
+     */
+    public static final RequestOptions LIST_THUMBNAIL_OPTIONS = new RequestOptions()
+            .format(DecodeFormat.PREFER_RGB_565)
+            .placeholder(R.drawable.placeholder_product)
+            .error(R.drawable.placeholder_product)
+            .lock();
+
+    /**
+     * Thumbnail options for the product grid. The crop is explicit so
+     * requests preloaded without an ImageView share the bound rows' cache key.
+     */
+    public static final RequestOptions GRID_THUMBNAIL_OPTIONS = LIST_THUMBNAIL_OPTIONS.clone()
+            .centerCrop()
+            .lock();
+
     /**
      * Load image from URL into ImageView using Glide
      *
@@ -95,6 +114,40 @@ public class ImageUtils {
         );
     }
 
+    /**
+     * Get the full image URL for a view of a given width
+     *
+     * @param imageUrl The relative or absolute image URL
+     * @param isProfileImage Whether this is a profile image
+     * @param targetWidthPx Width of the view in pixels, 0 or less for the original
+     * @return URL of the smallest rendition at least as wide as the view
+     */
+    public static String getFullImageUrl(String imageUrl, boolean isProfileImage, int targetWidthPx) {
+        return getRenditionUrl(getFullImageUrl(imageUrl, isProfileImage), targetWidthPx);
+    }
+
+    /**
+     * Ask the server for a resized copy of an image, rounded up to one of
+     * {@link Constants#IMAGE_RENDITION_WIDTHS} so that views of similar
+     * sizes share a rendition and its cache entry.
+     *
+     * @param fullImageUrl URL of the original image
+     * @param targetWidthPx Width of the view in pixels, 0 or less for the original
+     * @return Rendition URL, or the original when the view is wider than every rendition
+     */
+    public static String getRenditionUrl(String fullImageUrl, int targetWidthPx) {
+        if (fullImageUrl == null || targetWidthPx <= 0) {
+            return fullImageUrl;
+        }
+        for (int width : Constants.IMAGE_RENDITION_WIDTHS) {
+            if (width >= targetWidthPx) {
+                char separator = fullImageUrl.indexOf('?') >= 0 ? '&' : '?';
+                return fullImageUrl + separator + Constants.IMAGE_RENDITION_PARAM + "=" + width;
+            }
+        }
+        return fullImageUrl;
+    }
+
     /**
      * Get the full image URL for display
      *
@@ -3,6 +3,7 @@ package com.example.farmmobileapp.utils;
 
 import android.content.Context;
 import android.net.ConnectivityManager;
+import android.net.Network;
 import android.net.NetworkInfo;
 
 public class NetworkUtils {
@@ -87,6 +88,23 @@ public class NetworkUtils {
         return "None";
     }
 
+    /**
+     * Check if the active network may cost the user money (mobile data, metered Wi-Fi)
+     *
+     * @param context Application context
+     * @return true if metered or unknown, false on an unmetered network
+     */
+    public static boolean isMeteredNetwork(Context context) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        if (connectivityManager != null) {
+            return connectivityManager.isActiveNetworkMetered();
+        }
+
+        return true;
+    }
+
     /**
      * Get human readable network status
      *
@@ -104,4 +122,29 @@ public class NetworkUtils {
             return "No Internet Connection";
         }
     }
+
+    /**
+     * Run a task every time the default network becomes available
+     *
+     * @param context Application context
+     * @param onAvailable Task to run, called on a binder thread
+     * @return The registered callback, or null if connectivity is unavailable
+     */
+    public static ConnectivityManager.NetworkCallback registerNetworkCallback(Context context, Runnable onAvailable) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        if (connectivityManager == null) {
+            return null;
+        }
+
+        ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                onAvailable.run();
+            }
+        };
+        connectivityManager.registerDefaultNetworkCallback(callback);
+        return callback;
+    }
 }
@@ -0,0 +1,85 @@
+package com.example.farmmobileapp.utils;
+
+import com.example.farmmobileapp.network.ImageRequestBody;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+
+/**
+ * An image re-encoded by {@link ImagePreparer}, ready to upload.
+ */
+public class PreparedImage {
+    private final byte[] bytes;
+    private final String mimeType;
+    private final int width;
+    private final int height;
+    private final String sha256;
+
+    PreparedImage(byte[] bytes, String mimeType, int width, int height) {
+        this.bytes = bytes;
+        this.mimeType = mimeType;
+        this.width = width;
+        this.height = height;
+        this.sha256 = sha256(bytes);
+    }
+
+    /**
+     * @return Encoded bytes; shared, do not modify
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public int getSize() {
+        return bytes.length;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return Hex SHA-256 of the encoded bytes, to recognize an image that was already uploaded
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    public RequestBody asRequestBody() {
+        return new ImageRequestBody(bytes, MediaType.parse(mimeType));
+    }
+
+    /**
+     * @param name Form field name
+     * @param fileName Base file name, the extension is added
+     */
+    public MultipartBody.Part asPart(String name, String fileName) {
+        return MultipartBody.Part.createFormData(name, fileName + ".jpg", asRequestBody());
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android runtime ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.farmmobileapp.utils;
+
+import com.example.farmmobileapp.models.User;
+
+/**
+ * Immutable snapshot of the login state, see {@link SessionManager#getSession()}.
+ *
+ * The {@link User} is shared, not copied: treat it as read-only and go
+ * through {@link SessionManager#saveUser} to change it.
+ */
+public final class Session {
+    static final Session EMPTY = new Session(null, null, false);
+
+    private final String token;
+    private final User user;
+    private final boolean markedLoggedIn;
+
+    Session(String token, User user, boolean markedLoggedIn) {
+        this.token = token;
+        this.user = user;
+        this.markedLoggedIn = markedLoggedIn;
+    }
+
+    Session withToken(String token) {
+        return new Session(token, user, true);
+    }
+
+    Session withUser(User user) {
+        return new Session(token, user, true);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public boolean hasToken() {
+        return token != null && !token.isEmpty();
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Long getUserId() {
+        return user != null ? user.getId() : null;
+    }
+
+    public String getRole() {
+        return user != null ? user.getRole() : null;
+    }
+
+    /**
+     * @return Whether a token and a user are both present
+     */
+    public boolean isLoggedIn() {
+        return markedLoggedIn && hasToken() && user != null;
+    }
+
+    /**
+     * @return Whether a login was recorded, even if its data is incomplete
+     */
+    boolean isMarkedLoggedIn() {
+        return markedLoggedIn;
+    }
+}
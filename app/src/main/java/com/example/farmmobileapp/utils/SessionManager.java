@@ -4,9 +4,25 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
+import com.example.farmmobileapp.data.ProductRepository;
 import com.example.farmmobileapp.models.User;
+import com.example.farmmobileapp.network.AuthInterceptor;
 import com.google.gson.Gson;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Login state, held in memory as an immutable {@link Session}.
+ *
+ * The stored session is decoded once at startup; reads afterwards are a field
+ * access. Every change swaps in a new snapshot, notifies listeners and
+ * schedules a write of the latest snapshot on the disk thread, so a token and
+ * user saved back to back end up in a single write.
+ */
 public class SessionManager {
     private static final String PREF_NAME = "AgriConnectSession";
     private static final String KEY_TOKEN = "token";
@@ -14,15 +30,27 @@ public class SessionManager {
     private static final String KEY_IS_LOGGED_IN = "isLoggedIn";
     private static final String TAG = "SessionManager";
 
-    private SharedPreferences prefs;
-    private SharedPreferences.Editor editor;
-    private Context context;
+    private final SharedPreferences prefs;
+    private final Context context;
+    private final Gson gson = new Gson();
+    private final AtomicReference<Session> session;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
     private static SessionManager instance;
 
+    public interface Listener {
+        /**
+         * Called on the thread that changed the session.
+         */
+        void onSessionChanged(Session session);
+    }
+
     private SessionManager(Context context) {
         this.context = context;
         prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        editor = prefs.edit();
+        // Decode once; afterwards everything is served from memory
+        session = new AtomicReference<>(readStored());
+        AuthInterceptor.setToken(session.get().getToken());
     }
 
     public static synchronized SessionManager getInstance(Context context) {
@@ -32,86 +60,75 @@ public class SessionManager {
         return instance;
     }
 
+    /**
+     * @return Current snapshot; read it once when several fields are needed together
+     */
+    public Session getSession() {
+        return session.get();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
     public void saveAuthToken(String token) {
         if (token != null && !token.isEmpty()) {
             Log.d(TAG, "Saving auth token");
-            editor.putString(KEY_TOKEN, token);
-            editor.putBoolean(KEY_IS_LOGGED_IN, true);
-            editor.apply();
+            AuthInterceptor.setToken(token);
+            update(current -> current.withToken(token));
         } else {
             Log.e(TAG, "Attempted to save null or empty token");
         }
     }
 
     public String getAuthToken() {
-        String token = prefs.getString(KEY_TOKEN, null);
-        if (token == null) {
-            Log.d(TAG, "No auth token found");
-        }
-        return token;
+        return session.get().getToken();
+    }
+
+    public boolean hasAuthToken() {
+        return session.get().hasToken();
     }
 
     public String getAuthHeaderValue() {
-        String token = getAuthToken();
-        if (token == null) {
-            Log.d(TAG, "No auth token available for header");
-            return null;
-        }
-        Log.d(TAG, "Using token for auth header");
-        return "Bearer " + token;
+        return AuthInterceptor.getAuthHeader();
     }
 
     public void saveUser(User user) {
         if (user != null) {
             Log.d(TAG, "Saving user data for: " + user.getUsername());
-            Gson gson = new Gson();
-            String userJson = gson.toJson(user);
-            editor.putString(KEY_USER, userJson);
-            editor.putBoolean(KEY_IS_LOGGED_IN, true);
-            editor.apply();
+            update(current -> current.withUser(user));
         } else {
             Log.e(TAG, "Attempted to save null user");
         }
     }
 
     public User getUser() {
-        String userJson = prefs.getString(KEY_USER, null);
-        if (userJson != null) {
-            try {
-                Gson gson = new Gson();
-                User user = gson.fromJson(userJson, User.class);
-                Log.d(TAG, "Retrieved user: " + (user != null ? user.getUsername() : "null"));
-                return user;
-            } catch (Exception e) {
-                Log.e(TAG, "Error parsing user data", e);
-                return null;
-            }
-        }
-        Log.d(TAG, "No user data found");
-        return null;
+        return session.get().getUser();
     }
 
     public boolean isLoggedIn() {
-        boolean isLoggedIn = prefs.getBoolean(KEY_IS_LOGGED_IN, false);
-        String token = getAuthToken();
-        boolean hasToken = token != null && !token.isEmpty();
-        boolean hasUser = getUser() != null;
-        
+        Session current = session.get();
+        boolean validLogin = current.isLoggedIn();
+
         // Only consider logged in if we have all required data
-        boolean validLogin = isLoggedIn && hasToken && hasUser;
-        
-        if (!validLogin && isLoggedIn) {
+        if (!validLogin && current.isMarkedLoggedIn()) {
             Log.w(TAG, "Invalid login state detected, logging out");
             logout();
         }
-        
+
         return validLogin;
     }
 
     public void logout() {
         Log.d(TAG, "Logging out user");
-        editor.clear();
-        editor.apply();
+        AuthInterceptor.setToken(null);
+        update(current -> Session.EMPTY);
+        // Stored listings belong to the previous user
+        ProductRepository.getInstance(context).clear();
     }
 
     public String getUserProfileImage() {
@@ -121,4 +138,61 @@ public class SessionManager {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private void update(UnaryOperator<Session> change) {
+        Session previous;
+        Session next;
+        do {
+            previous = session.get();
+            next = change.apply(previous);
+        } while (!session.compareAndSet(previous, next));
+
+        for (Listener listener : listeners) {
+            listener.onSessionChanged(next);
+        }
+        scheduleWrite();
+    }
+
+    /**
+     * Persist whatever the session is when the disk thread gets to it; changes
+     * made before then are folded into the same write.
+     */
+    private void scheduleWrite() {
+        if (!writeScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        AppExecutors.getInstance().diskIO().execute(() -> {
+            writeScheduled.set(false);
+            Session current = session.get();
+            SharedPreferences.Editor editor = prefs.edit();
+            if (current == Session.EMPTY) {
+                editor.clear();
+            } else {
+                editor.putString(KEY_TOKEN, current.getToken());
+                editor.putString(KEY_USER, current.getUser() != null ? gson.toJson(current.getUser()) : null);
+                editor.putBoolean(KEY_IS_LOGGED_IN, current.isMarkedLoggedIn());
+            }
+            if (!editor.commit()) {
+                Log.e(TAG, "Failed to persist session");
+            }
+        });
+    }
+
+    private Session readStored() {
+        String token = prefs.getString(KEY_TOKEN, null);
+        boolean loggedIn = prefs.getBoolean(KEY_IS_LOGGED_IN, false);
+        User user = null;
+        String userJson = prefs.getString(KEY_USER, null);
+        if (userJson != null) {
+            try {
+                user = gson.fromJson(userJson, User.class);
+            } catch (Exception e) {
+                Log.e(TAG, "Error parsing user data", e);
+            }
+        }
+        if (token == null && user == null && !loggedIn) {
+            return Session.EMPTY;
+        }
+        return new Session(token, user, loggedIn);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.farmmobileapp.utils;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Glide model for an image the server can resize. Loaded through
+ * {@link SizedImageLoader}, which asks for the rendition matching the size
+ * of the target, so the URL is only known once the view is laid out.
+ */
+public final class SizedImage {
+    private final String url;
+
+    /**
+     * @param url Full URL of the original image
+     */
+    public SizedImage(@NonNull String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    // Part of Glide's memory cache key, together with the target size
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SizedImage && url.equals(((SizedImage) o).url);
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.farmmobileapp.utils;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelCache;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.load.model.stream.BaseGlideUrlLoader;
+
+import java.io.InputStream;
+
+/**
+ * Turns a {@link SizedImage} into the URL of its rendition for the target
+ * width, see {@link ImageUtils#getRenditionUrl}. The data is then fetched
+ * by the {@link GlideUrl} loader, so it goes through the shared image client
+ * and lands in the disk cache under the rendition URL.
+ */
+public class SizedImageLoader extends BaseGlideUrlLoader<SizedImage> {
+
+    SizedImageLoader(ModelLoader<GlideUrl, InputStream> urlLoader, ModelCache<SizedImage, GlideUrl> modelCache) {
+        super(urlLoader, modelCache);
+    }
+
+    @Override
+    protected String getUrl(SizedImage model, int width, int height, Options options) {
+        return ImageUtils.getRenditionUrl(model.getUrl(), width);
+    }
+
+    @Override
+    public boolean handles(@NonNull SizedImage model) {
+        return true;
+    }
+
+    public static class Factory implements ModelLoaderFactory<SizedImage, InputStream> {
+        // Rendition URLs by model and size, so rebinding a row does not rebuild them
+        private final ModelCache<SizedImage, GlideUrl> modelCache = new ModelCache<>(500);
+
+        @NonNull
+        @Override
+        public ModelLoader<SizedImage, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new SizedImageLoader(multiFactory.build(GlideUrl.class, InputStream.class), modelCache);
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
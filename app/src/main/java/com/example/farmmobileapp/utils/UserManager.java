@@ -58,8 +58,7 @@ public class UserManager {
      * @return True if user is a farmer, false otherwise
      */
     public boolean isFarmer() {
-        User user = getCurrentUser();
-        return user != null && "FARMER".equals(user.getRole());
+        return "FARMER".equals(getUserRole());
     }
 
     /**
@@ -68,8 +67,7 @@ public class UserManager {
      * @return True if user is a client, false otherwise
      */
     public boolean isClient() {
-        User user = getCurrentUser();
-        return user != null && "CLIENT".equals(user.getRole());
+        return "CLIENT".equals(getUserRole());
     }
 
     /**
@@ -78,8 +76,7 @@ public class UserManager {
      * @return True if user is an admin, false otherwise
      */
     public boolean isAdmin() {
-        User user = getCurrentUser();
-        return user != null && "ADMIN".equals(user.getRole());
+        return "ADMIN".equals(getUserRole());
     }
 
     /**
@@ -124,8 +121,7 @@ public class UserManager {
      * @return User role or null if not logged in
      */
     public String getUserRole() {
-        User user = getCurrentUser();
-        return user != null ? user.getRole() : null;
+        return sessionManager != null ? sessionManager.getSession().getRole() : null;
     }
 
     /**
@@ -134,8 +130,7 @@ public class UserManager {
      * @return User ID or null if not logged in
      */
     public Long getUserId() {
-        User user = getCurrentUser();
-        return user != null ? user.getId() : null;
+        return sessionManager != null ? sessionManager.getSession().getUserId() : null;
     }
 
     /**
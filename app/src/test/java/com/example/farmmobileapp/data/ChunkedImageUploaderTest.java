@@ -0,0 +1,306 @@
+package com.example.farmmobileapp.data;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.UploadStatus;
+import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.PreparedImage;
+import com.example.farmmobileapp.utils.TestImages;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Resumable image uploads against {@link LocalChunkedUploadServer}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ChunkedImageUploaderTest {
+    private static final int CHUNK = Constants.UPLOAD_CHUNK_SIZE;
+    private static final int SIZE = 3 * CHUNK + 100;
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private ChunkedImageUploader uploader;
+    private UploadStore store;
+    private LocalChunkedUploadServer server;
+
+    private static class Recorder implements ChunkedImageUploader.Listener {
+        // Only touched on the main thread
+        final List<Long> progress = new ArrayList<>();
+        long total;
+        volatile boolean done;
+        Product product;
+        Throwable error;
+
+        @Override
+        public void onProgress(long sentBytes, long totalBytes) {
+            progress.add(sentBytes);
+            total = totalBytes;
+        }
+
+        @Override
+        public void onComplete(Product product) {
+            this.product = product;
+            done = true;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        server = new LocalChunkedUploadServer();
+        store = UploadStore.getInstance(context);
+        uploader = ChunkedImageUploader.getInstance(context);
+        uploader.setEndpoint(server);
+    }
+
+    @Test
+    public void upload_sendsEveryChunkOnceAndReportsProgress() throws InterruptedException {
+        PreparedImage image = TestImages.prepared(SIZE, 1);
+        Recorder recorder = new Recorder();
+
+        uploader.upload(101, image, false, recorder);
+        await(recorder);
+
+        assertNull(recorder.error);
+        assertNotNull(recorder.product);
+        assertArrayEquals(image.getBytes(), server.getImage(101));
+        assertEquals(4, server.getChunkRequests());
+        assertEquals(SIZE, server.getBytesReceived());
+
+        assertEquals(SIZE, recorder.total);
+        assertEquals(0L, (long) recorder.progress.get(0));
+        assertEquals(SIZE, (long) recorder.progress.get(recorder.progress.size() - 1));
+        for (int i = 1; i < recorder.progress.size(); i++) {
+            assertTrue("Progress went back at " + i, recorder.progress.get(i) >= recorder.progress.get(i - 1));
+        }
+        // Progress is reported within chunks, not only once per chunk
+        assertTrue(recorder.progress.size() > 4);
+
+        assertNull(store.get(101));
+        assertEquals(image.getSha256(), store.getUploaded(UploadStore.productTarget(101)).sha256);
+    }
+
+    @Test
+    public void droppedChunk_resumesFromServerOffset() throws InterruptedException {
+        PreparedImage image = TestImages.prepared(SIZE, 2);
+        long dropAt = CHUNK + CHUNK / 2;
+        server.dropConnectionAt(dropAt);
+
+        Recorder failed = new Recorder();
+        uploader.upload(102, image, false, failed);
+        await(failed);
+
+        assertTrue(failed.error instanceof IOException);
+        UploadStore.Entry entry = store.get(102);
+        assertNotNull(entry.uploadId);
+        // Only the first chunk was acknowledged
+        assertEquals(CHUNK, entry.offset);
+
+        Recorder resumed = resume(102);
+
+        assertNull(resumed.error);
+        assertArrayEquals(image.getBytes(), server.getImage(102));
+        // The server kept the bytes before the drop, so they are not sent again
+        assertEquals(dropAt, (long) resumed.progress.get(0));
+        assertEquals(SIZE, server.getBytesReceived());
+        assertNull(store.get(102));
+    }
+
+    @Test
+    public void pendingUpload_survivesRestart() throws InterruptedException {
+        PreparedImage image = TestImages.prepared(SIZE, 3);
+        server.dropConnectionAt(2L * CHUNK + 10);
+
+        Recorder failed = new Recorder();
+        uploader.upload(103, image, false, failed);
+        await(failed);
+        uploader.removeListener(103, failed);
+
+        // Drop the open database so the next read comes from disk, as after a restart
+        store.close();
+        UploadStore.Entry entry = store.get(103);
+        assertNotNull(entry);
+        assertEquals(2L * CHUNK, entry.offset);
+        assertEquals(SIZE, entry.size);
+        assertEquals(image.getSha256(), entry.sha256);
+        assertTrue(new File(entry.filePath).isFile());
+
+        Recorder resumed = resume(103);
+
+        assertNull(resumed.error);
+        assertArrayEquals(image.getBytes(), server.getImage(103));
+        assertFalse(new File(entry.filePath).exists());
+    }
+
+    @Test
+    public void expiredUpload_startsOver() throws InterruptedException {
+        PreparedImage image = TestImages.prepared(SIZE, 4);
+        server.dropConnectionAt(CHUNK + 10);
+
+        Recorder failed = new Recorder();
+        uploader.upload(104, image, false, failed);
+        await(failed);
+        server.expireUploads();
+
+        Recorder resumed = resume(104);
+
+        assertNull(resumed.error);
+        assertArrayEquals(image.getBytes(), server.getImage(104));
+        assertEquals(0L, (long) resumed.progress.get(0));
+        // The part before the drop, then the whole image again
+        assertEquals(CHUNK + 10 + SIZE, server.getBytesReceived());
+    }
+
+    @Test
+    public void staleStatus_givesUpAfterRepeatedConflicts() throws InterruptedException {
+        // Answers status with offset 0 whatever the server has, like a cached response would
+        uploader.setEndpoint(new ChunkedUploadEndpoint() {
+            @Override
+            public UploadStatus start(long productId, long size, String mimeType) {
+                return server.start(productId, size, mimeType);
+            }
+
+            @Override
+            public UploadStatus status(long productId, String uploadId) {
+                return new UploadStatus(uploadId, 0, false, null);
+            }
+
+            @Override
+            public UploadStatus putChunk(long productId, String uploadId, long offset, RequestBody chunk)
+                    throws IOException {
+                return server.putChunk(productId, uploadId, offset, chunk);
+            }
+        });
+        PreparedImage image = TestImages.prepared(SIZE, 5);
+        server.dropConnectionAt(CHUNK + 10);
+
+        Recorder failed = new Recorder();
+        uploader.upload(105, image, false, failed);
+        await(failed);
+        int chunksBefore = server.getChunkRequests();
+
+        Recorder resumed = resume(105);
+
+        assertTrue(resumed.error instanceof IOException);
+        assertEquals(Constants.UPLOAD_MAX_CONFLICTS + 1, server.getChunkRequests() - chunksBefore);
+        // Kept for the next resume
+        assertNotNull(store.get(105));
+    }
+
+    @Test
+    public void rejectedUpload_isDropped() throws InterruptedException {
+        uploader.setEndpoint(failingChunks(413));
+        PreparedImage image = TestImages.prepared(SIZE, 6);
+
+        Recorder recorder = new Recorder();
+        uploader.upload(106, image, false, recorder);
+        await(recorder);
+
+        assertTrue(ChunkedImageUploader.isRejected(recorder.error));
+        assertNull(store.get(106));
+        assertEquals(0, new File(ApplicationProvider.<Context>getApplicationContext().getFilesDir(), "uploads")
+                .listFiles((dir, name) -> name.startsWith("product_106_")).length);
+    }
+
+    @Test
+    public void serverError_keepsUploadForRetry() throws InterruptedException {
+        uploader.setEndpoint(failingChunks(503));
+        PreparedImage image = TestImages.prepared(SIZE, 7);
+
+        Recorder recorder = new Recorder();
+        uploader.upload(107, image, false, recorder);
+        await(recorder);
+
+        assertFalse(ChunkedImageUploader.isRejected(recorder.error));
+        UploadStore.Entry entry = store.get(107);
+        assertNotNull(entry);
+        assertTrue(new File(entry.filePath).isFile());
+    }
+
+    @Test
+    public void isRejected_matchesOnlyPermanentClientErrors() {
+        for (int code : new int[]{400, 403, 404, 413, 415, 422}) {
+            assertTrue(String.valueOf(code), ChunkedImageUploader.isRejected(httpError(code)));
+        }
+        for (int code : new int[]{401, 408, 429, 500, 502, 503}) {
+            assertFalse(String.valueOf(code), ChunkedImageUploader.isRejected(httpError(code)));
+        }
+        assertFalse(ChunkedImageUploader.isRejected(new IOException("Connection reset")));
+    }
+
+    /**
+     * @return Endpoint that opens uploads on the local server but answers every chunk with {@code code}
+     */
+    private ChunkedUploadEndpoint failingChunks(int code) {
+        return new ChunkedUploadEndpoint() {
+            @Override
+            public UploadStatus start(long productId, long size, String mimeType) {
+                return server.start(productId, size, mimeType);
+            }
+
+            @Override
+            public UploadStatus status(long productId, String uploadId) {
+                return server.status(productId, uploadId);
+            }
+
+            @Override
+            public UploadStatus putChunk(long productId, String uploadId, long offset, RequestBody chunk) {
+                throw httpError(code);
+            }
+        };
+    }
+
+    private static HttpException httpError(int code) {
+        return new HttpException(Response.error(code,
+                ResponseBody.create("", MediaType.parse("application/json"))));
+    }
+
+    private Recorder resume(long productId) throws InterruptedException {
+        // Let the failed run release the product before resuming it
+        Thread.sleep(50);
+        Recorder recorder = new Recorder();
+        uploader.resume(productId, recorder);
+        await(recorder);
+        return recorder;
+    }
+
+    private static void await(Recorder recorder) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!recorder.done) {
+            assertTrue("Upload did not finish", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            // Callbacks are posted to the main looper, which only runs when idled
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        // Flush progress posted just before the final callback
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
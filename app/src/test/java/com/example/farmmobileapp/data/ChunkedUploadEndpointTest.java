@@ -0,0 +1,69 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ChunkedUploadEndpoint#fromApi} through the app's real client stack,
+ * HTTP cache included, against a local HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ChunkedUploadEndpointTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private Cache cache;
+    private ChunkedUploadEndpoint endpoint;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        cache = new Cache(folder.newFolder("http_cache"), 1024 * 1024);
+        endpoint = ChunkedUploadEndpoint.fromApi(
+                RetrofitClient.create(server.url("/api/").toString(), cache).create(ApiService.class));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cache.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void status_isAlwaysAskedOfTheServer() throws IOException {
+        server.enqueue(status(1000).setHeader("Cache-Control", "private, max-age=300"));
+        server.enqueue(status(1500).setHeader("Cache-Control", "private, max-age=300"));
+
+        assertEquals(1000, endpoint.status(7, "u1").getOffset());
+        assertEquals(1500, endpoint.status(7, "u1").getOffset());
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private static MockResponse status(long offset) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"uploadId\":\"u1\",\"offset\":" + offset + ",\"complete\":false}");
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.utils.Constants;
+import com.example.farmmobileapp.utils.ImageUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Rendition URLs fetched from {@link LocalImageRenditionServer}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ImageRenditionTest {
+    private static final String URL = "http://farm.example/images/product_1.jpg";
+    private static final int ORIGINAL_WIDTH = 800;
+
+    private LocalImageRenditionServer server;
+    private OkHttpClient client;
+    private byte[] original;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalImageRenditionServer();
+        original = LocalImageRenditionServer.solidJpeg(ORIGINAL_WIDTH, 600);
+        server.putImage("product_1.jpg", original);
+        client = new OkHttpClient.Builder().addInterceptor(server).build();
+    }
+
+    @Test
+    public void rendition_isScaledToItsBucket() throws IOException {
+        BufferedImage image = decode(fetch(ImageUtils.getRenditionUrl(URL, 300)));
+
+        assertEquals(320, image.getWidth());
+        assertEquals(240, image.getHeight());
+    }
+
+    @Test
+    public void renditions_areSmallerThanTheOriginal() throws IOException {
+        for (int bucket : Constants.IMAGE_RENDITION_WIDTHS) {
+            if (bucket < ORIGINAL_WIDTH) {
+                assertTrue(bucket + " wide", fetch(ImageUtils.getRenditionUrl(URL, bucket)).length < original.length);
+            }
+        }
+    }
+
+    @Test
+    public void widerThanOriginal_servesOriginal() throws IOException {
+        // 1000 rounds up to 1080, wider than the 800 pixel original
+        assertArrayEquals(original, fetch(ImageUtils.getRenditionUrl(URL, 1000)));
+    }
+
+    @Test
+    public void withoutWidth_servesOriginal() throws IOException {
+        assertArrayEquals(original, fetch(ImageUtils.getRenditionUrl(URL, 0)));
+        assertArrayEquals(original, fetch(URL));
+    }
+
+    @Test
+    public void existingQuery_isKept() throws IOException {
+        assertEquals(160, decode(fetch(ImageUtils.getRenditionUrl(URL + "?v=2", 100))).getWidth());
+    }
+
+    @Test
+    public void bytesServed_areCounted() throws IOException {
+        long expected = fetch(ImageUtils.getRenditionUrl(URL, 150)).length + fetch(URL).length;
+
+        assertEquals(expected, server.getBytesServed());
+        assertEquals(2, server.getRequests());
+    }
+
+    private byte[] fetch(String url) throws IOException {
+        try (Response response = client.newCall(new Request.Builder().url(url).build()).execute()) {
+            assertEquals(200, response.code());
+            return response.body().bytes();
+        }
+    }
+
+    private static BufferedImage decode(byte[] bytes) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.UploadStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * In-memory stand-in for {@code products/{id}/image/uploads}, for tests of
+ * {@link ChunkedImageUploader} without a backend.
+ *
+ * {@link #dropConnectionAt} simulates a link that dies mid-part: the server
+ * keeps the bytes that arrived before the drop and the client sees an
+ * IOException, like a rural connection going away at 90%.
+ */
+public class LocalChunkedUploadServer implements ChunkedUploadEndpoint {
+
+    private static class Upload {
+        final long productId;
+        final long size;
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+        Upload(long productId, long size) {
+            this.productId = productId;
+            this.size = size;
+        }
+
+        boolean isComplete() {
+            return received.size() == size;
+        }
+    }
+
+    private final Map<String, Upload> uploads = new HashMap<>();
+    private final Map<Long, byte[]> images = new HashMap<>();
+    private int nextId = 1;
+    private long dropAt = -1;
+    private long bytesReceived;
+    private int chunkRequests;
+
+    @Override
+    public synchronized UploadStatus start(long productId, long size, String mimeType) {
+        String uploadId = "u" + nextId++;
+        uploads.put(uploadId, new Upload(productId, size));
+        return new UploadStatus(uploadId, 0, size == 0, null);
+    }
+
+    @Override
+    public synchronized UploadStatus status(long productId, String uploadId) {
+        Upload upload = find(productId, uploadId);
+        return statusOf(uploadId, upload);
+    }
+
+    @Override
+    public synchronized UploadStatus putChunk(long productId, String uploadId, long offset, RequestBody chunk)
+            throws IOException {
+        chunkRequests++;
+        Upload upload = find(productId, uploadId);
+        if (offset != upload.received.size()) {
+            throw error(409);
+        }
+
+        Buffer buffer = new Buffer();
+        chunk.writeTo(buffer);
+        byte[] bytes = buffer.readByteArray();
+        if (offset + bytes.length > upload.size) {
+            throw error(400);
+        }
+
+        if (dropAt >= 0 && offset < dropAt && offset + bytes.length > dropAt) {
+            int kept = (int) (dropAt - offset);
+            upload.received.write(bytes, 0, kept);
+            bytesReceived += kept;
+            dropAt = -1;
+            throw new IOException("Connection reset after " + kept + " bytes");
+        }
+
+        upload.received.write(bytes, 0, bytes.length);
+        bytesReceived += bytes.length;
+        return statusOf(uploadId, upload);
+    }
+
+    /**
+     * Fail the part that crosses this offset of an upload, once.
+     */
+    public synchronized void dropConnectionAt(long offset) {
+        dropAt = offset;
+    }
+
+    /**
+     * Forget all open uploads, like a server that expired them.
+     */
+    public synchronized void expireUploads() {
+        uploads.clear();
+    }
+
+    /**
+     * @return Image stored for a product after a completed upload
+     */
+    public synchronized byte[] getImage(long productId) {
+        return images.get(productId);
+    }
+
+    /**
+     * @return Bytes received over all uploads, including repeats
+     */
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public synchronized int getChunkRequests() {
+        return chunkRequests;
+    }
+
+    private UploadStatus statusOf(String uploadId, Upload upload) {
+        if (!upload.isComplete()) {
+            return new UploadStatus(uploadId, upload.received.size(), false, null);
+        }
+        images.put(upload.productId, upload.received.toByteArray());
+        Product product = new Product();
+        product.setId(upload.productId);
+        product.setImageUrl("/images/product_" + upload.productId + ".jpg");
+        return new UploadStatus(uploadId, upload.size, true, product);
+    }
+
+    private Upload find(long productId, String uploadId) {
+        Upload upload = uploads.get(uploadId);
+        if (upload == null || upload.productId != productId) {
+            throw error(404);
+        }
+        return upload;
+    }
+
+    private static HttpException error(int code) {
+        return new HttpException(Response.error(code,
+                ResponseBody.create("", MediaType.parse("application/json"))));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.utils.Constants;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * In-memory stand-in for the server's {@code images/} path that resizes
+ * on request, for tests of thumbnail renditions without a backend.
+ *
+ * Add it as the last interceptor of an OkHttpClient and it answers every
+ * image request itself: {@code ?w=} returns the image scaled down to that
+ * width, as JPEG; no parameter, or a width at least as wide as the original,
+ * returns the original bytes. Bytes served are counted so a test can
+ * compare a grid screen with and without renditions.
+ */
+public class LocalImageRenditionServer implements Interceptor {
+    private static final MediaType JPEG = MediaType.parse("image/jpeg");
+
+    private final Map<String, byte[]> originals = new HashMap<>();
+    private final Map<String, byte[]> renditions = new HashMap<>();
+    private long bytesServed;
+    private int requests;
+
+    /**
+     * @param name File name under {@code images/}, e.g. "product_1.jpg"
+     * @param bytes Encoded original image
+     */
+    public synchronized void putImage(String name, byte[] bytes) {
+        originals.put(name, bytes);
+    }
+
+    /**
+     * @return Original of the given width and height, filled with one color
+     */
+    public static byte[] solidJpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.GREEN);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return encode(image);
+    }
+
+    @Override
+    public synchronized Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        requests++;
+
+        String path = request.url().encodedPath();
+        int slash = path.lastIndexOf("/images/");
+        byte[] original = slash >= 0 ? originals.get(path.substring(slash + "/images/".length())) : null;
+        if (original == null) {
+            return respond(request, 404, new byte[0]);
+        }
+
+        String widthParam = request.url().queryParameter(Constants.IMAGE_RENDITION_PARAM);
+        byte[] body = original;
+        if (widthParam != null) {
+            int width;
+            try {
+                width = Integer.parseInt(widthParam);
+            } catch (NumberFormatException e) {
+                return respond(request, 400, new byte[0]);
+            }
+            body = rendition(path, original, width);
+        }
+        bytesServed += body.length;
+        return respond(request, 200, body);
+    }
+
+    public synchronized long getBytesServed() {
+        return bytesServed;
+    }
+
+    public synchronized int getRequests() {
+        return requests;
+    }
+
+    private byte[] rendition(String path, byte[] original, int width) throws IOException {
+        String key = path + "@" + width;
+        byte[] cached = renditions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(original));
+        if (source == null || width <= 0 || width >= source.getWidth()) {
+            // Never scaled up
+            renditions.put(key, original);
+            return original;
+        }
+        int height = Math.max(1, Math.round(source.getHeight() * (float) width / source.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+
+        byte[] bytes = encode(scaled);
+        renditions.put(key, bytes);
+        return bytes;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static Response respond(Request request, int code, byte[] body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message(code == 200 ? "OK" : "Error")
+                .body(ResponseBody.create(body, JPEG))
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.ProductChanges;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * In-memory stand-in for {@code GET products/changes}, for tests of
+ * {@link ProductRepository#sync} without a backend.
+ *
+ * Every put or delete gets the next version; tokens are "v" + version.
+ * Tombstones are kept until {@link #compact()}, after which older tokens and
+ * times get a reset response, like a server that pruned its history.
+ */
+public class LocalProductDeltaServer implements ProductDeltaSource {
+
+    private static class Change {
+        final long version;
+        final long time;
+        final Product product;
+        final long productId;
+
+        Change(long version, long time, Product product, long productId) {
+            this.version = version;
+            this.time = time;
+            this.product = product;
+            this.productId = productId;
+        }
+
+        boolean isDelete() {
+            return product == null;
+        }
+    }
+
+    private final Gson gson = new Gson();
+    // Latest change per product id
+    private final Map<Long, Change> changes = new LinkedHashMap<>();
+    private long version;
+    private long compactedVersion;
+    private long compactedTime;
+    private int requestCount;
+    private int lastResponseBytes;
+    private int failureCode;
+
+    public synchronized void put(Product product) {
+        version++;
+        changes.put(product.getId(), new Change(version, System.currentTimeMillis(), product, product.getId()));
+    }
+
+    public synchronized void delete(long productId) {
+        version++;
+        changes.put(productId, new Change(version, System.currentTimeMillis(), null, productId));
+    }
+
+    /**
+     * Forget tombstones; clients behind this point must reload.
+     */
+    public synchronized void compact() {
+        changes.values().removeIf(Change::isDelete);
+        compactedVersion = version;
+        compactedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Answer every request with this status, e.g. 404 or 501 for a backend
+     * without the changes endpoint; 0 serves changes again.
+     */
+    public synchronized void failWith(int code) {
+        failureCode = code;
+    }
+
+    public synchronized List<Product> getProducts() {
+        List<Product> products = new ArrayList<>();
+        for (Change change : changes.values()) {
+            if (!change.isDelete()) {
+                products.add(change.product);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public synchronized ProductChanges fetchChanges(String since, Long sinceTime, int limit) {
+        requestCount++;
+        if (failureCode != 0) {
+            throw new HttpException(Response.error(failureCode,
+                    ResponseBody.create("", MediaType.parse("application/json"))));
+        }
+        ProductChanges response = respond(since, sinceTime, limit);
+        lastResponseBytes = gson.toJson(response).length();
+        return response;
+    }
+
+    private ProductChanges respond(String since, Long sinceTime, int limit) {
+        long fromVersion;
+        long fromTime;
+        if (since != null) {
+            if (!since.startsWith("v")) {
+                return reset();
+            }
+            try {
+                fromVersion = Long.parseLong(since.substring(1));
+            } catch (NumberFormatException e) {
+                return reset();
+            }
+            if (fromVersion < compactedVersion || fromVersion > version) {
+                return reset();
+            }
+            fromTime = Long.MIN_VALUE;
+        } else if (sinceTime != null) {
+            if (sinceTime < compactedTime) {
+                return reset();
+            }
+            fromVersion = 0;
+            fromTime = sinceTime;
+        } else {
+            return reset();
+        }
+
+        List<Change> pending = new ArrayList<>();
+        for (Change change : changes.values()) {
+            if (change.version > fromVersion && change.time >= fromTime) {
+                pending.add(change);
+            }
+        }
+        pending.sort(Comparator.comparingLong(change -> change.version));
+
+        boolean hasMore = pending.size() > limit;
+        List<Change> page = hasMore ? pending.subList(0, limit) : pending;
+        List<Product> upserts = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Change change : page) {
+            if (change.isDelete()) {
+                deleted.add(change.productId);
+            } else {
+                upserts.add(change.product);
+            }
+        }
+        long last = page.isEmpty() ? version : page.get(page.size() - 1).version;
+        return new ProductChanges("v" + last, upserts, deleted, hasMore, false);
+    }
+
+    private ProductChanges reset() {
+        return new ProductChanges("v" + version, null, null, false, true);
+    }
+
+    public synchronized int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return Size of the last response as JSON, what the wire would carry
+     */
+    public synchronized int getLastResponseBytes() {
+        return lastResponseBytes;
+    }
+}
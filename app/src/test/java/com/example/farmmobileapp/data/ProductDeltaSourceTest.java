@@ -0,0 +1,105 @@
+package com.example.farmmobileapp.data;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.ProductChanges;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ProductDeltaSource#fromApi} through the app's real client stack,
+ * HTTP cache included, against a local HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ProductDeltaSourceTest {
+    private static final String NO_CHANGES =
+            "{\"token\":\"v1\",\"upserts\":[],\"deleted\":[],\"hasMore\":false,\"reset\":false}";
+    private static final String ONE_CHANGE =
+            "{\"token\":\"v2\",\"upserts\":[{\"id\":1,\"name\":\"Beans\"}],\"deleted\":[],"
+                    + "\"hasMore\":false,\"reset\":false}";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private Cache cache;
+    private ApiService apiService;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        cache = new Cache(folder.newFolder("http_cache"), 1024 * 1024);
+        apiService = RetrofitClient.create(server.url("/api/").toString(), cache).create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cache.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void repeatedToken_isAskedAgain() throws IOException {
+        // What the backend sends: no-store, left alone for this endpoint
+        server.enqueue(json(NO_CHANGES).setHeader("Cache-Control", "no-store"));
+        server.enqueue(json(ONE_CHANGE).setHeader("Cache-Control", "no-store"));
+        ProductDeltaSource source = ProductDeltaSource.fromApi(apiService);
+
+        assertTrue(source.fetchChanges("v1", null, 200).getUpserts().isEmpty());
+        ProductChanges second = source.fetchChanges("v1", null, 200);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, second.getUpserts().size());
+    }
+
+    @Test
+    public void cacheableAnswer_isStillNotReused() throws IOException {
+        server.enqueue(json(NO_CHANGES).setHeader("Cache-Control", "private, max-age=300"));
+        server.enqueue(json(ONE_CHANGE).setHeader("Cache-Control", "private, max-age=300"));
+        ProductDeltaSource source = ProductDeltaSource.fromApi(apiService);
+
+        source.fetchChanges(null, 1000L, 200);
+        ProductChanges second = source.fetchChanges(null, 1000L, 200);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals("v2", second.getToken());
+        assertEquals("no-cache", server.takeRequest().getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void catalogListing_isServedFromCache() throws IOException {
+        server.enqueue(json("[{\"id\":1,\"name\":\"Beans\"}]").setHeader("Cache-Control", "no-store"));
+
+        Response<List<Product>> first = apiService.getAvailableProducts().execute();
+        Response<List<Product>> second = apiService.getAvailableProducts().execute();
+
+        assertTrue(first.isSuccessful());
+        assertTrue(second.isSuccessful());
+        assertEquals(1, second.body().size());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.farmmobileapp.data;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.network.ApiService;
+import com.example.farmmobileapp.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Cache;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * {@link ProductRepository#loadListing} through the app's real client stack,
+ * HTTP cache included, against a local HTTP server.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ProductRepositoryRefreshTest {
+    private static final String LISTING = ProductRepository.mineListing(10L);
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private Cache cache;
+    private ApiService apiService;
+    private ProductRepository repository;
+
+    private static class Result implements ProductRepository.Listener {
+        volatile boolean done;
+        List<Product> products;
+        Throwable error;
+
+        @Override
+        public void onCached(List<Product> products) {
+        }
+
+        @Override
+        public void onRevalidated(List<Product> products, ChangeSet changes) {
+            this.products = products;
+            done = true;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = ApplicationProvider.getApplicationContext();
+        CatalogStore.getInstance(context).clear();
+        repository = ProductRepository.getInstance(context);
+        server = new MockWebServer();
+        server.start();
+        cache = new Cache(folder.newFolder("http_cache"), 1024 * 1024);
+        apiService = RetrofitClient.create(server.url("/api/").toString(), cache).create(ApiService.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cache.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void forcedRefresh_bypassesHttpCache() throws Exception {
+        server.enqueue(products("[{\"id\":1,\"name\":\"Beans\",\"ownerId\":10}]"));
+        server.enqueue(products("[{\"id\":1,\"name\":\"Beans\",\"ownerId\":10},{\"id\":2,\"name\":\"Maize\",\"ownerId\":10}]"));
+
+        assertEquals(1, load(false).products.size());
+        Result refreshed = load(true);
+
+        assertNull(refreshed.error);
+        assertEquals(2, refreshed.products.size());
+        assertEquals(2, server.getRequestCount());
+        RecordedRequest first = server.takeRequest();
+        assertNull(first.getHeader("Cache-Control"));
+        assertEquals("no-cache", server.takeRequest().getHeader("Cache-Control"));
+    }
+
+    private Result load(boolean forceRefresh) throws InterruptedException {
+        Result result = new Result();
+        repository.loadListing(LISTING, apiService::getCurrentFarmerProducts, forceRefresh, result);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!result.done) {
+            assertTrue("Load did not finish", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            // Results are posted to the main looper, which only runs when idled
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        return result;
+    }
+
+    private static MockResponse products(String body) {
+        // What the backend sends; the app's cache rules make this listing cacheable
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setHeader("Cache-Control", "no-store")
+                .setBody(body);
+    }
+}
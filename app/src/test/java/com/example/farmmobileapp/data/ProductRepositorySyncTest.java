@@ -0,0 +1,250 @@
+package com.example.farmmobileapp.data;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.farmmobileapp.models.Product;
+import com.example.farmmobileapp.models.ProductChanges;
+import com.example.farmmobileapp.utils.Constants;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import retrofit2.HttpException;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Delta sync of stored listings against {@link LocalProductDeltaServer}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ProductRepositorySyncTest {
+    private static final String LISTING = "available";
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private CatalogStore store;
+    private ProductRepository repository;
+    private LocalProductDeltaServer server;
+
+    private static class Result implements ProductRepository.SyncListener {
+        volatile boolean done;
+        List<Product> products;
+        ChangeSet changes;
+        boolean fullReloadNeeded;
+        Throwable error;
+
+        @Override
+        public void onSynced(List<Product> products, ChangeSet changes) {
+            this.products = products;
+            this.changes = changes;
+            done = true;
+        }
+
+        @Override
+        public void onFullReloadNeeded() {
+            fullReloadNeeded = true;
+            done = true;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        store = CatalogStore.getInstance(context);
+        store.clear();
+        server = new LocalProductDeltaServer();
+        repository = ProductRepository.getInstance(context);
+        repository.setDeltaSource(server);
+    }
+
+    @Test
+    public void neverFetchedListing_needsFullReload() throws InterruptedException {
+        Result result = sync(LISTING);
+
+        assertTrue(result.fullReloadNeeded);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void upsertsAndTombstones_areApplied() throws InterruptedException {
+        server.put(product(1, "Beans", 500, 10L));
+        server.put(product(2, "Maize", 300, 10L));
+        server.put(product(3, "Rice", 800, 11L));
+        store.replaceListing(LISTING, server.getProducts());
+
+        server.put(product(2, "Maize", 350, 10L));
+        server.delete(3);
+        server.put(product(4, "Cassava", 200, 11L));
+        Result result = sync(LISTING);
+
+        assertFalse(result.fullReloadNeeded);
+        assertNull(result.error);
+        assertEquals(Arrays.asList(1L, 2L, 4L), ids(result.products));
+        assertEquals(0, new BigDecimal(350).compareTo(result.products.get(1).getPrice()));
+        assertEquals(Collections.singletonList(4L), ids(result.changes.getAdded()));
+        assertEquals(Collections.singletonList(2L), ids(result.changes.getUpdated()));
+        assertEquals(Collections.singletonList(3L), result.changes.getRemoved());
+        assertNotNull(store.getSyncState(LISTING).token);
+    }
+
+    @Test
+    public void secondSync_onlyDownloadsNewChanges() throws InterruptedException {
+        server.put(product(1, "Beans", 500, 10L));
+        store.replaceListing(LISTING, server.getProducts());
+        sync(LISTING);
+
+        server.put(product(1, "Beans", 450, 10L));
+        Result result = sync(LISTING);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(Collections.singletonList(1L), ids(result.changes.getUpdated()));
+
+        Result unchanged = sync(LISTING);
+        assertTrue(unchanged.changes.isEmpty());
+    }
+
+    @Test
+    public void hasMoreChain_isFollowedUntilDone() throws InterruptedException {
+        store.replaceListing(LISTING, Collections.emptyList());
+        int count = Constants.DELTA_SYNC_PAGE_SIZE * 2 + 1;
+        for (long id = 1; id <= count; id++) {
+            server.put(product(id, "Product " + id, 100, 10L));
+        }
+
+        Result result = sync(LISTING);
+
+        assertFalse(result.fullReloadNeeded);
+        assertEquals(3, server.getRequestCount());
+        assertEquals(count, result.products.size());
+    }
+
+    @Test
+    public void hasMoreChain_beyondMaxRounds_needsFullReload() throws InterruptedException {
+        store.replaceListing(LISTING, Collections.emptyList());
+        int count = Constants.DELTA_SYNC_PAGE_SIZE * Constants.DELTA_SYNC_MAX_ROUNDS + 1;
+        for (long id = 1; id <= count; id++) {
+            server.put(product(id, "Product " + id, 100, 10L));
+        }
+
+        Result result = sync(LISTING);
+
+        assertTrue(result.fullReloadNeeded);
+        assertEquals(Constants.DELTA_SYNC_MAX_ROUNDS, server.getRequestCount());
+    }
+
+    @Test
+    public void syncAfterCompact_needsFullReload() throws InterruptedException {
+        server.put(product(1, "Beans", 500, 10L));
+        server.put(product(2, "Maize", 300, 10L));
+        store.replaceListing(LISTING, server.getProducts());
+        sync(LISTING);
+
+        server.delete(2);
+        server.compact();
+        Result result = sync(LISTING);
+
+        assertTrue(result.fullReloadNeeded);
+        // Nothing applied from a reset response
+        assertEquals(Arrays.asList(1L, 2L), ids(store.getListing(LISTING, 0)));
+    }
+
+    @Test
+    public void missingEndpoint_needsFullReload() throws InterruptedException {
+        server.put(product(1, "Beans", 500, 10L));
+        store.replaceListing(LISTING, server.getProducts());
+
+        server.failWith(404);
+        assertTrue(sync(LISTING).fullReloadNeeded);
+
+        server.failWith(501);
+        assertTrue(sync(LISTING).fullReloadNeeded);
+    }
+
+    @Test
+    public void serverError_isReportedNotReloaded() throws InterruptedException {
+        server.put(product(1, "Beans", 500, 10L));
+        store.replaceListing(LISTING, server.getProducts());
+
+        server.failWith(500);
+        Result result = sync(LISTING);
+
+        assertFalse(result.fullReloadNeeded);
+        assertTrue(result.error instanceof HttpException);
+        assertEquals(500, ((HttpException) result.error).code());
+    }
+
+    @Test
+    public void applyChanges_ownerListing_dropsProductsOfOtherOwners() {
+        String listing = ProductRepository.mineListing(10L);
+        store.replaceListing(listing, Arrays.asList(product(1, "Beans", 500, 10L), product(2, "Maize", 300, 10L)));
+
+        store.applyChanges(listing, new ProductChanges("v1",
+                Arrays.asList(product(2, "Maize", 300, 11L), product(3, "Rice", 800, 10L), product(4, "Millet", 150, 11L)),
+                null, false, false), 10L);
+
+        assertEquals(Arrays.asList(1L, 3L), ids(store.getListing(listing, 0)));
+    }
+
+    @Test
+    public void applyChanges_pagedListing_doesNotAppendUnseenProducts() {
+        store.replaceRange(LISTING, 0, Collections.singletonList(product(1, "Beans", 500, 10L)), false);
+
+        store.applyChanges(LISTING, new ProductChanges("v1",
+                Arrays.asList(product(1, "Beans", 450, 10L), product(2, "Maize", 300, 10L)),
+                null, false, false), null);
+
+        List<Product> listed = store.getListing(LISTING, 0);
+        assertEquals(Collections.singletonList(1L), ids(listed));
+        assertEquals(0, new BigDecimal(450).compareTo(listed.get(0).getPrice()));
+    }
+
+    private Result sync(String listing) throws InterruptedException {
+        Result result = new Result();
+        repository.sync(listing, result);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!result.done) {
+            assertTrue("Sync of " + listing + " did not finish", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            // Results are posted to the main looper, which only runs when idled
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        return result;
+    }
+
+    private static Product product(long id, String name, int price, Long ownerId) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setAvailableQuantity(5);
+        product.setOwnerId(ownerId);
+        return product;
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        List<Long> ids = new ArrayList<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.farmmobileapp.network;
+
+import com.example.farmmobileapp.utils.Constants;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Which endpoints the cache rewrite applies to.
+ */
+public class CacheControlInterceptorTest {
+
+    @Test
+    public void catalogEndpoints_areCached() {
+        assertEquals(Constants.REFRESH_INTERVAL_PRODUCTS, CacheControlInterceptor.freshnessFor("products"));
+        assertEquals(Constants.REFRESH_INTERVAL_PRODUCTS, CacheControlInterceptor.freshnessFor("products/42"));
+        assertEquals(Constants.REFRESH_INTERVAL_PRODUCTS, CacheControlInterceptor.freshnessFor("products/available"));
+        assertEquals(Constants.REFRESH_INTERVAL_PRODUCTS, CacheControlInterceptor.freshnessFor("products/farmer/me"));
+        assertEquals(Constants.REFRESH_INTERVAL_PRODUCTS, CacheControlInterceptor.freshnessFor("products/farmer/7"));
+    }
+
+    @Test
+    public void liveEndpointsUnderProducts_areNotCached() {
+        assertEquals(0, CacheControlInterceptor.freshnessFor("products/changes"));
+        assertEquals(0, CacheControlInterceptor.freshnessFor("products/search"));
+        assertEquals(0, CacheControlInterceptor.freshnessFor("products/page"));
+        assertEquals(0, CacheControlInterceptor.freshnessFor("products/42/image/uploads/u1"));
+    }
+
+    @Test
+    public void otherResources_areNotCached() {
+        assertEquals(0, CacheControlInterceptor.freshnessFor("orders/client"));
+        assertEquals(0, CacheControlInterceptor.freshnessFor("products-archive"));
+    }
+}
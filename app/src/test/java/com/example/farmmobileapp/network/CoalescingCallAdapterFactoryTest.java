@@ -0,0 +1,156 @@
+package com.example.farmmobileapp.network;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+
+import static org.junit.Assert.*;
+
+/**
+ * Coalescing of identical GETs, served by an interceptor that holds the
+ * first request until the test releases it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class CoalescingCallAdapterFactoryTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    interface TestApi {
+        @GET("products")
+        Call<List<Object>> getProducts();
+    }
+
+    private static class Result<T> implements Callback<T> {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Response<T> response;
+        volatile Throwable failure;
+
+        @Override
+        public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        @Override
+        public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+            failure = t;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("Call did not finish", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch firstArrived = new CountDownLatch(1);
+    private final CountDownLatch releaseFirst = new CountDownLatch(1);
+    private TestApi api;
+
+    @Before
+    public void setUp() {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    if (requests.incrementAndGet() == 1) {
+                        firstArrived.countDown();
+                        try {
+                            releaseFirst.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return new okhttp3.Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(200)
+                            .message("OK")
+                            .body(ResponseBody.create("[]", MediaType.parse("application/json")))
+                            .build();
+                })
+                .build();
+        api = new Retrofit.Builder()
+                .baseUrl("http://farm.example/api/")
+                .client(client)
+                .addCallAdapterFactory(new CoalescingCallAdapterFactory())
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(TestApi.class);
+    }
+
+    @Test
+    public void identicalGets_shareOneRequest() throws InterruptedException {
+        Result<List<Object>> first = new Result<>();
+        Result<List<Object>> second = new Result<>();
+
+        api.getProducts().enqueue(first);
+        assertTrue(firstArrived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        api.getProducts().enqueue(second);
+        releaseFirst.countDown();
+        first.await();
+        second.await();
+
+        assertEquals(1, requests.get());
+        assertTrue(first.response.isSuccessful());
+        assertTrue(second.response.isSuccessful());
+    }
+
+    @Test
+    public void cancelThenEnqueueAgain_startsFreshCall() throws InterruptedException {
+        Result<List<Object>> canceled = new Result<>();
+        Result<List<Object>> refreshed = new Result<>();
+
+        Call<List<Object>> call = api.getProducts();
+        call.enqueue(canceled);
+        assertTrue(firstArrived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // What Paginator.refresh() and CallRegistry.enqueue(key, ...) do
+        call.cancel();
+        api.getProducts().enqueue(refreshed);
+        refreshed.await();
+        releaseFirst.countDown();
+        canceled.await();
+
+        assertEquals(2, requests.get());
+        assertNull(refreshed.failure);
+        assertTrue(refreshed.response.isSuccessful());
+        assertNotNull(canceled.failure);
+    }
+
+    @Test
+    public void cancelOfOneSubscriber_keepsSharedRequestForTheOthers() throws InterruptedException {
+        Result<List<Object>> canceled = new Result<>();
+        Result<List<Object>> waiting = new Result<>();
+
+        Call<List<Object>> call = api.getProducts();
+        call.enqueue(canceled);
+        assertTrue(firstArrived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        api.getProducts().enqueue(waiting);
+        call.cancel();
+        releaseFirst.countDown();
+        waiting.await();
+        canceled.await();
+
+        assertEquals(1, requests.get());
+        assertTrue(waiting.response.isSuccessful());
+        assertNotNull(canceled.failure);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.farmmobileapp.utils;
+
+import com.example.farmmobileapp.network.RetrofitClient;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Rendition URLs: target widths rounded up to {@link Constants#IMAGE_RENDITION_WIDTHS}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ImageUtilsTest {
+    private static final String URL = "http://farm.example/images/product_1.jpg";
+
+    @Test
+    public void renditionUrl_roundsUpToNextBucket() {
+        int previous = 0;
+        for (int bucket : Constants.IMAGE_RENDITION_WIDTHS) {
+            String expected = URL + "?" + Constants.IMAGE_RENDITION_PARAM + "=" + bucket;
+            assertEquals(expected, ImageUtils.getRenditionUrl(URL, previous + 1));
+            assertEquals(expected, ImageUtils.getRenditionUrl(URL, bucket));
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void renditionUrl_widerThanLargestBucket_isOriginal() {
+        int[] widths = Constants.IMAGE_RENDITION_WIDTHS;
+        assertEquals(URL, ImageUtils.getRenditionUrl(URL, widths[widths.length - 1] + 1));
+    }
+
+    @Test
+    public void renditionUrl_withoutWidth_isOriginal() {
+        assertEquals(URL, ImageUtils.getRenditionUrl(URL, 0));
+        assertEquals(URL, ImageUtils.getRenditionUrl(URL, -1));
+    }
+
+    @Test
+    public void renditionUrl_nullUrl_isNull() {
+        assertNull(ImageUtils.getRenditionUrl(null, 300));
+        assertNull(ImageUtils.getFullImageUrl(null, false, 300));
+        assertNull(ImageUtils.getFullImageUrl("", false, 300));
+    }
+
+    @Test
+    public void renditionUrl_mergesWithExistingQuery() {
+        assertEquals(URL + "?v=3&w=320", ImageUtils.getRenditionUrl(URL + "?v=3", 300));
+    }
+
+    @Test
+    public void fullImageUrl_absoluteUrl_keepsHost() {
+        assertEquals("https://cdn.example/a.jpg?w=480",
+                ImageUtils.getFullImageUrl("https://cdn.example/a.jpg", false, 400));
+    }
+
+    @Test
+    public void fullImageUrl_relativeUrl_resolvesAgainstServer() {
+        String server = RetrofitClient.getBaseUrl().replace("/api/", "");
+        assertEquals(server + "/images/product_1.jpg?w=160",
+                ImageUtils.getFullImageUrl("product_1.jpg", false, 100));
+        assertEquals(server + "/images/product_1.jpg?w=160",
+                ImageUtils.getFullImageUrl("/images/product_1.jpg", false, 100));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.farmmobileapp.utils;
+
+import java.util.Random;
+
+/**
+ * Prepared images for tests that do not go through {@link ImagePreparer}.
+ */
+public class TestImages {
+
+    /**
+     * @return JPEG-typed image of random bytes; the same seed gives the same bytes
+     */
+    public static PreparedImage prepared(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return new PreparedImage(bytes, Constants.IMAGE_TYPE_JPEG, 1, 1);
+    }
+
+    private TestImages() {
+    }
+}